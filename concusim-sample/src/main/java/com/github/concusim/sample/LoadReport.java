@@ -0,0 +1,95 @@
+package com.github.concusim.sample;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of {@link OptimisticLockHarness} run.
+ *
+ * Latency and throughput are measured in time simulated by the harness (a request lasts from the step which started it
+ * till the step which finished it, including all retries and backoffs), so they don't depend on the machine
+ * and are reproducible for the same seed.
+ */
+public final class LoadReport {
+    private final long requests;
+    private final long attempts;
+    private final long conflicts;
+    private final long abandoned;
+    private final long elapsedNanos;
+    private final long[] latencies;
+
+    LoadReport(long requests, long attempts, long conflicts, long abandoned, long elapsedNanos, long[] latencies) {
+        this.requests = requests;
+        this.attempts = attempts;
+        this.conflicts = conflicts;
+        this.abandoned = abandoned;
+        this.elapsedNanos = elapsedNanos;
+        this.latencies = latencies.clone();
+        Arrays.sort(this.latencies);
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return count of serve() calls including retries
+     */
+    public long getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return count of attempts failed with OptimisticLockException
+     */
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * @return count of requests which ran out of attempts
+     */
+    public long getAbandoned() {
+        return abandoned;
+    }
+
+    /**
+     * @return share of attempts failed with OptimisticLockException
+     */
+    public double getConflictRate() {
+        return attempts > 0 ? (double) conflicts / attempts : 0;
+    }
+
+    /**
+     * @return requests per second of simulated time
+     */
+    public double getRequestsPerSecond() {
+        return elapsedNanos > 0 ? requests * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * Returns latency percentile (nearest rank).
+     *
+     * @param percentile percentile in range (0, 100]
+     * @return latency in milliseconds of simulated time
+     */
+    public long getLatencyMillis(double percentile) {
+        if (percentile <= 0 || percentile > 100)
+            throw new IllegalArgumentException("percentile must be in range (0, 100]");
+
+        if (latencies.length == 0)
+            return 0;
+
+        int rank = (int) Math.ceil(percentile / 100 * latencies.length);
+        return TimeUnit.NANOSECONDS.toMillis(latencies[Math.max(rank, 1) - 1]);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "requests: %d, attempts: %d, conflicts: %d (%.1f%%), abandoned: %d, " +
+            "latency p50/p95/p99: %d/%d/%d ms, throughput: %.1f req/s",
+            requests, attempts, conflicts, getConflictRate() * 100, abandoned,
+            getLatencyMillis(50), getLatencyMillis(95), getLatencyMillis(99), getRequestsPerSecond());
+    }
+}
@@ -0,0 +1,366 @@
+package com.github.concusim.sample;
+
+import com.github.concusim.Concurrency;
+import com.github.concusim.testing.ConcurrencySimulator;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.OptimisticLockException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load harness which measures how updates of versioned {@link MyEntity} degrade as contention rises.
+ *
+ * N workers serve requests via {@link MyService#serve}, each request updates a key chosen with Zipf skew
+ * (exponent 0 is uniform, the higher exponent the hotter the first keys). Request which failed with
+ * OptimisticLockException is retried with exponential backoff.
+ *
+ * Workers are driven by the simulator one step at a time: each attempt is paused before commit
+ * and after it finished. Time is simulated by the harness: each worker has its own clock which is advanced
+ * by fixed service time on each step and by backoff before each retry, so workers serve requests in parallel.
+ * The next worker to step is the one with the earliest clock, ties are broken round-robin or randomly with
+ * fixed seed, so every run with the same settings produces the same interleaving.
+ * Latency and throughput are measured in this time, so they reflect the retry policy and are reproducible.
+ *
+ * <pre>
+ * LoadReport report = new OptimisticLockHarness(emf)
+ *     .withWorkers(8, 100)
+ *     .withKeys(100, 1.2)
+ *     .withRetries(5, 10)
+ *     .run();
+ * </pre>
+ */
+public final class OptimisticLockHarness {
+    static final String CHECKPOINT_AFTER_ATTEMPT = "afterAttempt";
+
+    private static final int MAX_BACKOFF_DOUBLINGS = 16;
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    public enum Order {
+        ROUND_ROBIN, RANDOM
+    }
+
+    private final EntityManagerFactory emf;
+    private int workers = 4;
+    private int requestsPerWorker = 10;
+    private int keys = 10;
+    private double skew;
+    private boolean partitioned;
+    private int maxAttempts = 3;
+    private long backoffMillis = 10;
+    private long serviceMillis = 1;
+    private Order order = Order.ROUND_ROBIN;
+    private long seed;
+
+    public OptimisticLockHarness(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    /**
+     * Sets count of workers and requests served by each of them.
+     *
+     * @param workers count of workers
+     * @param requestsPerWorker count of requests per worker
+     * @return this
+     */
+    public OptimisticLockHarness withWorkers(int workers, int requestsPerWorker) {
+        if (workers <= 0 || requestsPerWorker <= 0)
+            throw new IllegalArgumentException("workers and requestsPerWorker must be positive");
+
+        this.workers = workers;
+        this.requestsPerWorker = requestsPerWorker;
+        return this;
+    }
+
+    /**
+     * Sets count of keys (entities) and Zipf exponent of key popularity.
+     *
+     * @param keys count of keys
+     * @param skew Zipf exponent, 0 for uniform distribution
+     * @return this
+     */
+    public OptimisticLockHarness withKeys(int keys, double skew) {
+        if (keys <= 0 || skew < 0)
+            throw new IllegalArgumentException("keys must be positive and skew must be non-negative");
+
+        this.keys = keys;
+        this.skew = skew;
+        return this;
+    }
+
+    /**
+     * Splits keys between workers, so each worker updates only its own share and workers never conflict.
+     * Useful as a baseline to tell contention from the rest of the load. Requires at least as many keys as workers.
+     *
+     * @param partitioned true to split keys between workers
+     * @return this
+     */
+    public OptimisticLockHarness withPartitionedKeys(boolean partitioned) {
+        this.partitioned = partitioned;
+        return this;
+    }
+
+    /**
+     * Sets retry policy. Backoff before the n-th retry is {@code backoffMillis * 2^(n-1)},
+     * doubling stops after 16 retries.
+     *
+     * @param maxAttempts max count of attempts per request, 1 disables retries
+     * @param backoffMillis backoff before the first retry in milliseconds, at most 1 hour
+     * @return this
+     */
+    public OptimisticLockHarness withRetries(int maxAttempts, long backoffMillis) {
+        if (maxAttempts <= 0 || backoffMillis < 0 || backoffMillis > MAX_BACKOFF_MILLIS)
+            throw new IllegalArgumentException("maxAttempts must be positive and backoffMillis must be in [0, 1 hour]");
+
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        return this;
+    }
+
+    /**
+     * Sets simulated time taken by each step, i.e. by each half of an attempt.
+     *
+     * @param milliseconds service time in milliseconds
+     * @return this
+     */
+    public OptimisticLockHarness withServiceTimeMillis(long milliseconds) {
+        if (milliseconds <= 0)
+            throw new IllegalArgumentException("milliseconds must be positive");
+
+        this.serviceMillis = milliseconds;
+        return this;
+    }
+
+    /**
+     * Sets order in which workers are stepped and seed of all random choices.
+     *
+     * @param order step order
+     * @param seed random seed
+     * @return this
+     */
+    public OptimisticLockHarness withOrder(Order order, long seed) {
+        this.order = order;
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Creates keys and runs all requests. Checkpoints must be enabled.
+     *
+     * @return load report
+     * @throws Exception if simulator failed
+     */
+    public LoadReport run() throws Exception {
+        if (partitioned && keys < workers)
+            throw new IllegalStateException("Partitioned keys require at least as many keys as workers");
+
+        long[] ids = createKeys();
+        MyService service = new MyService(emf);
+
+        List<Worker> all = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            long[] share = partitioned ? Arrays.copyOfRange(ids, i * keys / workers, (i + 1) * keys / workers) : ids;
+            all.add(new Worker(service, share, zipf(share.length), new Random(seed + i)));
+        }
+
+        Random random = new Random(seed);
+        long serviceNanos = TimeUnit.MILLISECONDS.toNanos(serviceMillis);
+        long[] latencies = new long[workers * requestsPerWorker];
+        int completed = 0;
+
+        ConcurrencySimulator simulator = new ConcurrencySimulator()
+            .withConcurrentWorkers("worker", all::get, workers);
+
+        boolean succeeded = false;
+        try {
+            simulator.start();
+
+            List<Worker> active = new ArrayList<>(all);
+            int next = 0;
+            while (!active.isEmpty()) {
+                int index = choose(active, next, random);
+                Worker worker = active.get(index);
+                next = index + 1;
+
+                if (!worker.committing) {
+                    simulator.run(worker).till(MyService.class, MyService.CHECKPOINT_BEFORE_COMMIT).go();
+                    worker.committing = true;
+                    worker.clock += serviceNanos;
+                    continue;
+                }
+
+                simulator.run(worker).till(OptimisticLockHarness.class, CHECKPOINT_AFTER_ATTEMPT).go();
+                worker.committing = false;
+                worker.clock += serviceNanos;
+
+                if (!worker.requestEnded) {
+                    worker.clock += backoffNanos(worker.retries);
+                    continue;
+                }
+
+                latencies[completed++] = worker.clock - worker.requestStarted;
+                worker.requestStarted = worker.clock;
+
+                if (worker.finished) {
+                    simulator.run(worker).tillEnd().go();
+                    active.remove(index);
+                    next = index;
+                }
+            }
+            succeeded = true;
+        } finally {
+            // don't mask failure of the run by leaked workers
+            if (succeeded) {
+                simulator.close();
+            } else {
+                simulator.stop();
+            }
+        }
+
+        long attempts = 0;
+        long conflicts = 0;
+        long abandoned = 0;
+        long elapsed = 0;
+        for (Worker worker: all) {
+            attempts += worker.attempts;
+            conflicts += worker.conflicts;
+            abandoned += worker.abandoned;
+            elapsed = Math.max(elapsed, worker.clock);
+        }
+
+        return new LoadReport(completed, attempts, conflicts, abandoned, elapsed, Arrays.copyOf(latencies, completed));
+    }
+
+    /**
+     * @return index of the next worker to step, i.e. one with the earliest clock
+     */
+    private int choose(List<Worker> active, int next, Random random) {
+        long earliest = Long.MAX_VALUE;
+        for (Worker worker: active) {
+            earliest = Math.min(earliest, worker.clock);
+        }
+
+        List<Integer> ready = new ArrayList<>(active.size());
+        for (int i = 0; i < active.size(); i++) {
+            int index = (next + i) % active.size();
+            if (active.get(index).clock == earliest) {
+                ready.add(index);
+            }
+        }
+
+        return order == Order.RANDOM ? ready.get(random.nextInt(ready.size())) : ready.get(0);
+    }
+
+    /**
+     * @return backoff before specified retry
+     */
+    private long backoffNanos(int retry) {
+        return TimeUnit.MILLISECONDS.toNanos(backoffMillis) << Math.min(retry - 1, MAX_BACKOFF_DOUBLINGS);
+    }
+
+    private long[] createKeys() {
+        long[] ids = new long[keys];
+
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        try {
+            List<MyEntity> entities = new ArrayList<>(keys);
+            for (int i = 0; i < keys; i++) {
+                MyEntity entity = MyEntity.newOne("key-" + i, "initial");
+                em.persist(entity);
+                entities.add(entity);
+            }
+            em.getTransaction().commit();
+
+            for (int i = 0; i < keys; i++) {
+                ids[i] = entities.get(i).getId();
+            }
+        } finally {
+            em.close();
+        }
+
+        return ids;
+    }
+
+    /**
+     * @return cumulative distribution of key popularity
+     */
+    private double[] zipf(int size) {
+        double[] cdf = new double[size];
+
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cdf[i] /= sum;
+        }
+
+        return cdf;
+    }
+
+    private final class Worker implements Runnable {
+        private final MyService service;
+        private final long[] ids;
+        private final double[] cdf;
+        private final Random random;
+        private long attempts;
+        private long conflicts;
+        private long abandoned;
+        private volatile int retries;
+        private volatile boolean requestEnded;
+        private volatile boolean finished;
+        private boolean committing;
+        private long clock;
+        private long requestStarted;
+
+        Worker(MyService service, long[] ids, double[] cdf, Random random) {
+            this.service = service;
+            this.ids = ids;
+            this.cdf = cdf;
+            this.random = random;
+        }
+
+        @Override
+        public void run() {
+            for (int request = 0; request < requestsPerWorker; request++) {
+                long id = ids[nextKey()];
+
+                for (int attempt = 1; ; attempt++) {
+                    attempts++;
+
+                    boolean succeeded = false;
+                    try {
+                        service.serve(id, Thread.currentThread().getName() + "-" + request);
+                        succeeded = true;
+                    } catch (OptimisticLockException e) {
+                        conflicts++;
+                    }
+
+                    // backoff is applied by the driver, see OptimisticLockHarness.run
+                    boolean last = succeeded || attempt == maxAttempts;
+                    if (last && !succeeded) {
+                        abandoned++;
+                    }
+                    retries = attempt;
+                    requestEnded = last;
+                    finished = last && request == requestsPerWorker - 1;
+
+                    Concurrency.checkpoint(OptimisticLockHarness.class, CHECKPOINT_AFTER_ATTEMPT);
+                    if (last)
+                        break;
+                }
+            }
+        }
+
+        private int nextKey() {
+            int index = Arrays.binarySearch(cdf, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+        }
+    }
+}
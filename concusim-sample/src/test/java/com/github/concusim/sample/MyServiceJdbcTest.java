@@ -0,0 +1,114 @@
+package com.github.concusim.sample;
+
+import com.github.concusim.Concurrency;
+import com.github.concusim.jdbc.CheckpointDataSource;
+import com.github.concusim.jdbc.StatementStats;
+import com.github.concusim.testing.AggregatedException;
+import com.github.concusim.testing.ConcurrencySimulator;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.Persistence;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Same race as in {@link MyServiceTest} but interleaved at SQL statement granularity
+ * via {@link CheckpointDataSource} instead of hand-placed checkpoint.
+ */
+public class MyServiceJdbcTest {
+    private static final String CHECKPOINT_BEFORE_UPDATE =
+        CheckpointDataSource.CHECKPOINT_BEFORE_EXECUTE + ":update_myentity";
+
+    private CheckpointDataSource dataSource;
+    private EntityManagerFactory emf;
+
+    @Before
+    public void setUp() {
+        JDBCDataSource hsqldb = new JDBCDataSource();
+        hsqldb.setUrl("jdbc:hsqldb:mem:sample");
+        hsqldb.setUser("sa");
+        hsqldb.setPassword("");
+
+        dataSource = new CheckpointDataSource(hsqldb).withFingerprints(true);
+        emf = Persistence.createEntityManagerFactory(
+            "sample-db", Collections.singletonMap("hibernate.connection.datasource", dataSource));
+        Concurrency.enableCheckpoints();
+    }
+
+    @After
+    public void tearDown() {
+        Concurrency.disableCheckpoints();
+        if (emf != null) {
+            emf.close();
+            emf = null;
+        }
+    }
+
+    @Test
+    public void myService_server_should_throw_optimistic_lock_exception_if_update_interleaved() throws Exception {
+        // arrange
+        long entityId;
+
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        try {
+            MyEntity entity = MyEntity.newOne("key", "value");
+            em.persist(entity);
+            em.getTransaction().commit();
+
+            entityId = entity.getId();
+        } finally {
+            em.close();
+        }
+
+        MyService svc = new MyService(emf);
+        dataSource.resetStatementStats();
+
+        // act concurrently
+        Runnable requestA = () -> svc.serve(entityId, "new-value-A");
+        Runnable requestB = () -> svc.serve(entityId, "new-value-B");
+
+        ConcurrencySimulator simulator = new ConcurrencySimulator()
+            .withStepTimeoutSec(1)
+            .withConcurrentWorker(requestA, "A")
+            .withConcurrentWorker(requestB, "B");
+
+        simulator.start();
+        try {
+            simulator
+                .run(requestA).till(CheckpointDataSource.class, CHECKPOINT_BEFORE_UPDATE)
+                .run(requestB).tillEnd()
+                .go();
+
+            try {
+                simulator
+                    .run(requestA).tillEnd()
+                    .go();
+
+                fail("AggregatedException is expected.");
+            } catch (AggregatedException e) {
+                // assert
+                assertThat(e.getCauseFor(requestA), instanceOf(OptimisticLockException.class));
+            }
+        } finally {
+            simulator.stop();
+        }
+
+        StatementStats update = dataSource.getStatementStats().stream()
+            .filter(s -> s.getFingerprint().startsWith("update myentity"))
+            .findFirst()
+            .orElseThrow(AssertionError::new);
+
+        assertThat(update.getCount(), is(2L));
+    }
+}
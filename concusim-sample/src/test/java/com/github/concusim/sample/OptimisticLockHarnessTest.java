@@ -0,0 +1,104 @@
+package com.github.concusim.sample;
+
+import com.github.concusim.Concurrency;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class OptimisticLockHarnessTest {
+    private EntityManagerFactory emf;
+
+    @Before
+    public void setUp() {
+        emf = Persistence.createEntityManagerFactory("sample-db");
+        Concurrency.enableCheckpoints();
+    }
+
+    @After
+    public void tearDown() {
+        Concurrency.disableCheckpoints();
+        if (emf != null) {
+            emf.close();
+            emf = null;
+        }
+    }
+
+    @Test
+    public void optimisticLockHarness_should_report_conflicts_reproducibly() throws Exception {
+        OptimisticLockHarness harness = new OptimisticLockHarness(emf)
+            .withWorkers(4, 5)
+            .withKeys(3, 2.0)
+            .withRetries(3, 10)
+            .withOrder(OptimisticLockHarness.Order.RANDOM, 42);
+
+        LoadReport first = harness.run();
+        LoadReport second = harness.run();
+
+        assertThat(first.getRequests(), is(20L));
+        assertThat(first.getConflicts(), greaterThan(0L));
+        assertThat(first.getAttempts(), is(first.getRequests() - first.getAbandoned() + first.getConflicts()));
+        assertThat(first.getLatencyMillis(99), greaterThanOrEqualTo(first.getLatencyMillis(50)));
+
+        assertThat(second.getConflicts(), is(first.getConflicts()));
+        assertThat(second.getLatencyMillis(95), is(first.getLatencyMillis(95)));
+        assertThat(second.getRequestsPerSecond(), is(first.getRequestsPerSecond()));
+    }
+
+    @Test
+    public void optimisticLockHarness_should_not_conflict_on_single_worker() throws Exception {
+        LoadReport report = new OptimisticLockHarness(emf)
+            .withWorkers(1, 5)
+            .withKeys(1, 0)
+            .run();
+
+        assertThat(report.getConflicts(), is(0L));
+        assertThat(report.getAttempts(), is(5L));
+        assertThat(report.getLatencyMillis(50), is(2L));
+    }
+
+    @Test
+    public void optimisticLockHarness_should_scale_throughput_with_workers_on_disjoint_keys() throws Exception {
+        LoadReport one = new OptimisticLockHarness(emf)
+            .withWorkers(1, 5)
+            .withKeys(4, 0)
+            .withPartitionedKeys(true)
+            .run();
+        LoadReport four = new OptimisticLockHarness(emf)
+            .withWorkers(4, 5)
+            .withKeys(4, 0)
+            .withPartitionedKeys(true)
+            .run();
+
+        assertThat(four.getConflicts(), is(0L));
+        assertThat(four.getLatencyMillis(100), is(one.getLatencyMillis(100)));
+        assertThat(four.getRequestsPerSecond(), is(4 * one.getRequestsPerSecond()));
+    }
+
+    @Test
+    public void optimisticLockHarness_should_account_backoff_in_latency() throws Exception {
+        LoadReport fast = new OptimisticLockHarness(emf)
+            .withWorkers(4, 5)
+            .withKeys(1, 0)
+            .withRetries(3, 10)
+            .run();
+        LoadReport slow = new OptimisticLockHarness(emf)
+            .withWorkers(4, 5)
+            .withKeys(1, 0)
+            .withRetries(3, 1000)
+            .run();
+
+        assertThat(slow.getConflicts(), greaterThan(0L));
+        assertThat(slow.getLatencyMillis(100), greaterThanOrEqualTo(1000L));
+        assertThat(fast.getLatencyMillis(100), lessThan(1000L));
+        assertThat(slow.getRequestsPerSecond(), lessThan(fast.getRequestsPerSecond()));
+    }
+}
@@ -3,6 +3,8 @@ package com.github.concusim;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.TimeUnit;
+
 import static com.github.concusim.testing.CheckpointUtils.getFullName;
 
 /**
@@ -12,8 +14,13 @@ import static com.github.concusim.testing.CheckpointUtils.getFullName;
  * in test to model specific interleaving cases.
  *
  * By default method checkpoint does nothing and has minimal overhead (just one check which should be in-lined by JIT).
+ *
+ * Methods sleep, currentTimeNanos and await use real clock by default. Under ConcurrencySimulator they use
+ * simulated clock which jumps forward as soon as every running worker is sleeping.
  */
 public final class Concurrency {
+    private static final long MIN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
     private static final ThreadLocal<ICheckpointInterceptor> interceptor = new ThreadLocal<>();
     private static boolean enabled = false;
 
@@ -32,6 +39,135 @@ public final class Concurrency {
         }
     }
 
+    /**
+     * Sleeps for specified time, replaces {@code Thread.sleep(millis)}.
+     *
+     * @param millis time to sleep in milliseconds
+     * @throws InterruptedException if thread has been interrupted while sleeping
+     */
+    public static void sleep(long millis) throws InterruptedException {
+        ICheckpointInterceptor i = enabled ? interceptor.get() : null;
+        if (i == null) {
+            Thread.sleep(millis);
+            return;
+        }
+
+        i.onSleep(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Returns current time, replaces {@code System.nanoTime()}.
+     *
+     * @return current time in nanoseconds (only differences are meaningful)
+     */
+    public static long currentTimeNanos() {
+        ICheckpointInterceptor i = enabled ? interceptor.get() : null;
+        return i != null ? i.currentTimeNanos() : System.nanoTime();
+    }
+
+    /**
+     * Denotes "interesting" place where thread awaits some condition with timeout,
+     * e.g. {@code Concurrency.await(getClass(), "lock", lock::tryLock, 5, TimeUnit.SECONDS)}.
+     *
+     * By default just delegates to condition. Under simulation probes condition periodically
+     * while sleeping on simulated clock.
+     *
+     * @param clazz owning class
+     * @param name checkpoint name
+     * @param condition condition to await
+     * @param timeout max time to wait
+     * @param unit time unit of timeout
+     * @return true if condition is met, false if timeout elapsed
+     * @throws InterruptedException if thread has been interrupted while waiting
+     */
+    public static boolean await(
+        @NotNull Class<?> clazz, @NotNull String name,
+        @NotNull ITimedCondition condition, long timeout, @NotNull TimeUnit unit) throws InterruptedException
+    {
+        checkpoint(clazz, name);
+
+        ICheckpointInterceptor i = enabled ? interceptor.get() : null;
+        if (i == null)
+            return condition.await(timeout, unit);
+
+        long remaining = unit.toNanos(timeout);
+        long poll = Math.max(MIN_POLL_NANOS, remaining >> 6);
+        long deadline = i.currentTimeNanos() + remaining;
+
+        while (!condition.await(0, TimeUnit.NANOSECONDS)) {
+            remaining = deadline - i.currentTimeNanos();
+            if (remaining <= 0)
+                return false;
+
+            i.onSleep(Math.min(poll, remaining));
+        }
+
+        return true;
+    }
+
+    /**
+     * Denotes read of plain (non-volatile, unsynchronized) field. Used by race detector.
+     *
+     * @param target object which owns the field (class for static field)
+     * @param field field name
+     */
+    public static void read(@NotNull Object target, @NotNull String field) {
+        if (!enabled)
+            return;
+
+        ICheckpointInterceptor i = interceptor.get();
+        if (i != null) {
+            i.onRead(target, field);
+        }
+    }
+
+    /**
+     * Denotes write of plain (non-volatile, unsynchronized) field. Used by race detector.
+     *
+     * @param target object which owns the field (class for static field)
+     * @param field field name
+     */
+    public static void write(@NotNull Object target, @NotNull String field) {
+        if (!enabled)
+            return;
+
+        ICheckpointInterceptor i = interceptor.get();
+        if (i != null) {
+            i.onWrite(target, field);
+        }
+    }
+
+    /**
+     * Denotes acquire of synchronization object, e.g. after {@code lock.lock()} or {@code queue.take()}.
+     * Everything done by other threads before they released the same object happens-before this point.
+     *
+     * @param lock synchronization object
+     */
+    public static void acquire(@NotNull Object lock) {
+        if (!enabled)
+            return;
+
+        ICheckpointInterceptor i = interceptor.get();
+        if (i != null) {
+            i.onAcquire(lock);
+        }
+    }
+
+    /**
+     * Denotes release of synchronization object, e.g. before {@code lock.unlock()} or {@code queue.put(item)}.
+     *
+     * @param lock synchronization object
+     */
+    public static void release(@NotNull Object lock) {
+        if (!enabled)
+            return;
+
+        ICheckpointInterceptor i = interceptor.get();
+        if (i != null) {
+            i.onRelease(lock);
+        }
+    }
+
     public static boolean isCheckpointsEnabled() {
         return enabled;
     }
@@ -3,6 +3,8 @@ package com.github.concusim;
 import com.github.concusim.testing.ConcurrencySimulator;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Concurrency checkpoint interceptor.
  *
@@ -16,4 +18,59 @@ public interface ICheckpointInterceptor {
      * @param name checkpoint name
      */
     void onCheckpoint(@NotNull String name);
+
+    /**
+     * Called when executing thread requests {@code Concurrency.currentTimeNanos()}.
+     * By default returns real time.
+     *
+     * @return current time in nanoseconds (only differences are meaningful)
+     */
+    default long currentTimeNanos() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Called when executing thread reaches {@code Concurrency.sleep(millis)}.
+     * By default sleeps for real time.
+     *
+     * @param nanos time to sleep in nanoseconds
+     * @throws InterruptedException if thread has been interrupted while sleeping
+     */
+    default void onSleep(long nanos) throws InterruptedException {
+        TimeUnit.NANOSECONDS.sleep(nanos);
+    }
+
+    /**
+     * Called when executing thread reaches {@code Concurrency.read(target, field)}.
+     *
+     * @param target object which owns the field
+     * @param field field name
+     */
+    default void onRead(@NotNull Object target, @NotNull String field) {
+    }
+
+    /**
+     * Called when executing thread reaches {@code Concurrency.write(target, field)}.
+     *
+     * @param target object which owns the field
+     * @param field field name
+     */
+    default void onWrite(@NotNull Object target, @NotNull String field) {
+    }
+
+    /**
+     * Called when executing thread reaches {@code Concurrency.acquire(lock)}.
+     *
+     * @param lock synchronization object
+     */
+    default void onAcquire(@NotNull Object lock) {
+    }
+
+    /**
+     * Called when executing thread reaches {@code Concurrency.release(lock)}.
+     *
+     * @param lock synchronization object
+     */
+    default void onRelease(@NotNull Object lock) {
+    }
 }
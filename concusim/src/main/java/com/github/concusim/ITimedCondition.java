@@ -0,0 +1,24 @@
+package com.github.concusim;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Condition which might be awaited with timeout, e.g. {@code lock::tryLock} or {@code semaphore::tryAcquire}.
+ *
+ * Implementation must support zero timeout as non-blocking probe.
+ */
+@FunctionalInterface
+public interface ITimedCondition {
+
+    /**
+     * Awaits condition.
+     *
+     * @param timeout max time to wait
+     * @param unit time unit of timeout
+     * @return true if condition is met, false if timeout elapsed
+     * @throws InterruptedException if thread has been interrupted while waiting
+     */
+    boolean await(long timeout, @NotNull TimeUnit unit) throws InterruptedException;
+}
@@ -0,0 +1,255 @@
+package com.github.concusim.jdbc;
+
+import com.github.concusim.Concurrency;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * DataSource wrapper which places concurrency checkpoints around each statement execution, commit and rollback,
+ * so {@link com.github.concusim.testing.ConcurrencySimulator} is able to interleave transactions at statement
+ * granularity. Also records latency of each statement by its fingerprint (normalized SQL).
+ *
+ * Checkpoints are owned by this class, e.g. {@code till(CheckpointDataSource.class, CHECKPOINT_BEFORE_COMMIT)}.
+ * If fingerprints are enabled execute checkpoints are suffixed by statement verb and main table,
+ * e.g. {@code beforeExecute:update_myentity}.
+ */
+public final class CheckpointDataSource implements DataSource {
+    public static final String CHECKPOINT_BEFORE_EXECUTE = "beforeExecute";
+    public static final String CHECKPOINT_AFTER_EXECUTE = "afterExecute";
+    public static final String CHECKPOINT_BEFORE_COMMIT = "beforeCommit";
+    public static final String CHECKPOINT_AFTER_COMMIT = "afterCommit";
+    public static final String CHECKPOINT_BEFORE_ROLLBACK = "beforeRollback";
+    public static final String CHECKPOINT_AFTER_ROLLBACK = "afterRollback";
+
+    private static final String BATCH = "batch";
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(@NotNull Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "commit":
+                    return intercept(CHECKPOINT_BEFORE_COMMIT, CHECKPOINT_AFTER_COMMIT, method, args);
+                case "rollback":
+                    return intercept(CHECKPOINT_BEFORE_ROLLBACK, CHECKPOINT_AFTER_ROLLBACK, method, args);
+                case "createStatement":
+                    return wrap(Statement.class, (Statement) invokeTarget(method, args), null, (Connection) proxy);
+                case "prepareStatement":
+                    return wrap(
+                        PreparedStatement.class, (Statement) invokeTarget(method, args),
+                        (String) args[0], (Connection) proxy);
+                case "prepareCall":
+                    return wrap(
+                        CallableStatement.class, (Statement) invokeTarget(method, args),
+                        (String) args[0], (Connection) proxy);
+                default:
+                    return invokeDefault(proxy, target, method, args);
+            }
+        }
+
+        private Object intercept(
+            @NotNull String before, @NotNull String after, Method method, Object[] args) throws Throwable
+        {
+            Concurrency.checkpoint(CheckpointDataSource.class, before);
+            Object ret = invokeTarget(method, args);
+            Concurrency.checkpoint(CheckpointDataSource.class, after);
+            return ret;
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            return delegate(target, method, args);
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String sql;
+        private final Connection connection;
+
+        StatementHandler(@NotNull Statement target, @Nullable String sql, @NotNull Connection connection) {
+            this.target = target;
+            this.sql = sql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("getConnection"))
+                return connection;
+
+            if (!method.getName().startsWith("execute"))
+                return invokeDefault(proxy, target, method, args);
+
+            String statement = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+            String suffix = fingerprints ? ":" + (statement != null ? SqlFingerprint.shortForm(statement) : BATCH) : "";
+
+            Concurrency.checkpoint(CheckpointDataSource.class, CHECKPOINT_BEFORE_EXECUTE + suffix);
+
+            boolean failed = true;
+            long start = System.nanoTime();
+            try {
+                Object ret = delegate(target, method, args);
+                failed = false;
+                return ret;
+            } finally {
+                record(statement, System.nanoTime() - start, failed);
+                if (!failed) {
+                    Concurrency.checkpoint(CheckpointDataSource.class, CHECKPOINT_AFTER_EXECUTE + suffix);
+                }
+            }
+        }
+    }
+
+    private final DataSource target;
+    private final Map<String, StatementStats> stats = new ConcurrentHashMap<>();
+    private volatile boolean fingerprints;
+
+    public CheckpointDataSource(@NotNull DataSource target) {
+        this.target = target;
+    }
+
+    /**
+     * Enables or disables statement fingerprints in execute checkpoint names.
+     *
+     * @param enabled true to enable fingerprints
+     * @return this
+     */
+    public @NotNull CheckpointDataSource withFingerprints(boolean enabled) {
+        this.fingerprints = enabled;
+        return this;
+    }
+
+    /**
+     * @return latency statistics of executed statements ordered by total time descending
+     */
+    public @NotNull List<StatementStats> getStatementStats() {
+        List<StatementStats> ret = new ArrayList<>(stats.values());
+        ret.sort(Comparator.comparingLong(StatementStats::getTotalNanos).reversed());
+        return ret;
+    }
+
+    /**
+     * Clears latency statistics.
+     */
+    public void resetStatementStats() {
+        stats.clear();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(target.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(target.getConnection(username, password));
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return target.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        target.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        target.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return target.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return target.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : target.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || target.isWrapperFor(iface);
+    }
+
+    private @NotNull Connection wrap(@NotNull Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+            CheckpointDataSource.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            new ConnectionHandler(connection));
+    }
+
+    private @NotNull Statement wrap(
+        @NotNull Class<? extends Statement> iface, @NotNull Statement statement,
+        @Nullable String sql, @NotNull Connection connection)
+    {
+        return (Statement) Proxy.newProxyInstance(
+            CheckpointDataSource.class.getClassLoader(),
+            new Class<?>[] {iface},
+            new StatementHandler(statement, sql, connection));
+    }
+
+    private void record(@Nullable String sql, long nanos, boolean failed) {
+        String fingerprint = sql != null ? SqlFingerprint.normalize(sql) : BATCH;
+        stats.computeIfAbsent(fingerprint, StatementStats::new).record(nanos, failed);
+    }
+
+    /**
+     * Delegates method to target except of equals, hashCode and toString: wrapper is equal only to itself
+     * (target never knows the wrapper, so forwarding would make it unequal even to itself).
+     */
+    private static Object invokeDefault(
+        @NotNull Object proxy, @NotNull Object target, @NotNull Method method, Object[] args) throws Throwable
+    {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "checkpoint:" + target;
+            default:
+                return delegate(target, method, args);
+        }
+    }
+
+    private static Object delegate(@NotNull Object target, @NotNull Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.concusim.jdbc;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * SQL statement fingerprints.
+ */
+final class SqlFingerprint {
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Normalizes statement: lower case, literals replaced by '?', whitespace collapsed.
+     * E.g. {@code update MyEntity set value='x' where id=1} becomes {@code update myentity set value=? where id=?}.
+     *
+     * @param sql statement
+     * @return normalized statement
+     */
+    static @NotNull String normalize(@NotNull String sql) {
+        String ret = STRING_LITERAL.matcher(sql).replaceAll("?");
+        ret = NUMBER_LITERAL.matcher(ret).replaceAll("?");
+        ret = WHITESPACE.matcher(ret).replaceAll(" ");
+        return ret.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Makes short fingerprint suitable for checkpoint name: statement verb and main table,
+     * e.g. {@code update_myentity} or {@code select_myentity}.
+     *
+     * @param sql statement
+     * @return short fingerprint
+     */
+    static @NotNull String shortForm(@NotNull String sql) {
+        String[] tokens = normalize(sql).split("[\\s(,]+");
+        if (tokens.length == 0 || tokens[0].isEmpty())
+            return "unknown";
+
+        String verb = tokens[0];
+        String table = null;
+        switch (verb) {
+            case "select":
+            case "delete":
+                table = tokenAfter(tokens, "from");
+                break;
+            case "insert":
+            case "merge":
+                table = tokenAfter(tokens, "into");
+                break;
+            case "update":
+                table = tokens.length > 1 ? tokens[1] : null;
+                break;
+            default:
+                break;
+        }
+
+        return table != null ? verb + "_" + table : verb;
+    }
+
+    private static String tokenAfter(@NotNull String[] tokens, @NotNull String keyword) {
+        for (int i = 0; i + 1 < tokens.length; i++) {
+            if (tokens[i].equals(keyword))
+                return tokens[i + 1];
+        }
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.concusim.jdbc;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Latency statistics of one statement fingerprint (normalized SQL).
+ */
+public final class StatementStats {
+    private final String fingerprint;
+    private long count;
+    private long failures;
+    private long totalNanos;
+    private long maxNanos;
+
+    StatementStats(@NotNull String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public @NotNull String getFingerprint() {
+        return fingerprint;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public synchronized long getMeanNanos() {
+        return count > 0 ? totalNanos / count : 0;
+    }
+
+    synchronized void record(long nanos, boolean failed) {
+        count++;
+        if (failed) {
+            failures++;
+        }
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+            "%s: count=%d, failures=%d, mean=%dus, max=%dus",
+            fingerprint, count, failures, getMeanNanos() / 1000, maxNanos / 1000);
+    }
+}
@@ -4,7 +4,11 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public final class AggregatedException extends RuntimeException {
     private static final class CauseEntry {
@@ -37,9 +41,13 @@ public final class AggregatedException extends RuntimeException {
     }
 
     private final CauseEntry[] causes;
+    private final Map<Runnable, Throwable> causesByWorker = new IdentityHashMap<>();
 
     private AggregatedException(CauseEntry[] causes) {
         this.causes = causes;
+        for (CauseEntry entry: causes) {
+            causesByWorker.putIfAbsent(entry.worker.getRunnable(), entry.cause);
+        }
     }
 
     @Override
@@ -57,11 +65,17 @@ public final class AggregatedException extends RuntimeException {
     }
 
     public @Nullable Throwable getCauseFor(@NotNull Runnable worker) {
+        return causesByWorker.get(worker);
+    }
+
+    /**
+     * @return causes by worker name in order of occurrence
+     */
+    public @NotNull Map<String, Throwable> getCauses() {
+        Map<String, Throwable> ret = new LinkedHashMap<>();
         for (CauseEntry entry: causes) {
-            if (entry.worker.getRunnable() == worker)
-                return entry.cause;
+            ret.put(entry.worker.getName(), entry.cause);
         }
-
-        return null;
+        return Collections.unmodifiableMap(ret);
     }
 }
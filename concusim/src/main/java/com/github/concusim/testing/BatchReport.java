@@ -0,0 +1,84 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Summary of a batch run: how many schedules were run and which of them failed and how.
+ */
+public final class BatchReport {
+    private final long total;
+    private final List<ScheduleResult> failures;
+    private final Set<String> reachedCheckpoints;
+
+    BatchReport(long total, @NotNull List<ScheduleResult> failures, @NotNull Set<String> reachedCheckpoints) {
+        List<ScheduleResult> sorted = new ArrayList<>(failures);
+        sorted.sort(Comparator.comparingLong(ScheduleResult::getIndex));
+
+        this.total = total;
+        this.failures = Collections.unmodifiableList(sorted);
+        this.reachedCheckpoints = Collections.unmodifiableSet(new TreeSet<>(reachedCheckpoints));
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getPassed() {
+        return total - failures.size();
+    }
+
+    /**
+     * @return failed schedules ordered by index
+     */
+    public @NotNull List<ScheduleResult> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return full names of checkpoints reached by workers over all schedules
+     */
+    public @NotNull Set<String> getReachedCheckpoints() {
+        return reachedCheckpoints;
+    }
+
+    /**
+     * @return failed schedules grouped by failure signature
+     */
+    public @NotNull Map<String, List<ScheduleResult>> getFailuresBySignature() {
+        Map<String, List<ScheduleResult>> ret = new LinkedHashMap<>();
+        for (ScheduleResult result: failures) {
+            ret.computeIfAbsent(result.getFailureSignature(), key -> new ArrayList<>()).add(result);
+        }
+        return ret;
+    }
+
+    /**
+     * @return human readable summary
+     */
+    public @NotNull String getSummary() {
+        StringBuilder sb = new StringBuilder(512);
+
+        sb.append(String.format("Schedules: %d, passed: %d, failed: %d\n", total, getPassed(), failures.size()));
+        for (Map.Entry<String, List<ScheduleResult>> entry: getFailuresBySignature().entrySet()) {
+            sb.append("  ").append(entry.getKey())
+                .append(": ").append(entry.getValue().size())
+                .append(" (first #").append(entry.getValue().get(0).getIndex()).append(")\n");
+        }
+
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+}
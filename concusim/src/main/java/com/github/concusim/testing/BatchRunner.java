@@ -0,0 +1,233 @@
+package com.github.concusim.testing;
+
+import com.github.concusim.Concurrency;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many schedules against one scenario factory, each schedule with fresh scenario and simulator.
+ * Schedules are streamed from the source and run in parallel by a fixed set of lanes (one thread per lane),
+ * each lane takes the next schedule as soon as it finished the previous one.
+ *
+ * <pre>
+ * BatchReport report = new BatchRunner(MyScenario::new)
+ *     .withParallelism(4)
+ *     .run(Paths.get("schedules.txt"));
+ * </pre>
+ */
+public final class BatchRunner {
+    private static final Logger log = LoggerFactory.getLogger(BatchRunner.class);
+
+    private final IScenarioFactory factory;
+    private final Set<String> scenarioClasses = ConcurrentHashMap.newKeySet();
+    private int parallelism;
+    private long stepTimeout;
+
+    /**
+     * Constructs new BatchRunner with parallelism equal to available processors and default step timeout (5sec).
+     *
+     * @param factory scenario factory
+     */
+    public BatchRunner(@NotNull IScenarioFactory factory) {
+        this.factory = factory;
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+        this.stepTimeout = 5000;
+    }
+
+    /**
+     * Sets count of schedules run concurrently.
+     *
+     * @param parallelism count of lanes
+     * @return this
+     */
+    public @NotNull BatchRunner withParallelism(int parallelism) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("parallelism must be positive");
+
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets step timeout of simulators in milliseconds.
+     *
+     * @param milliseconds step timeout in milliseconds
+     * @return this
+     */
+    public @NotNull BatchRunner withStepTimeoutMillis(long milliseconds) {
+        if (milliseconds < 0)
+            throw new IllegalArgumentException("milliseconds must be non-negative");
+
+        this.stepTimeout = milliseconds;
+        return this;
+    }
+
+    /**
+     * Runs all schedules from file.
+     *
+     * @param file schedule file
+     * @return batch report
+     * @throws IOException if file couldn't be read
+     * @throws InterruptedException if current thread has been interrupted
+     */
+    public @NotNull BatchReport run(@NotNull Path file) throws IOException, InterruptedException {
+        try (ScheduleReader reader = new ScheduleReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            return run(reader);
+        }
+    }
+
+    /**
+     * Runs all schedules from iterator. Iterator is consumed lazily, so it might stream schedules from large source.
+     *
+     * @param schedules schedule source
+     * @return batch report
+     * @throws InterruptedException if current thread has been interrupted
+     */
+    public @NotNull BatchReport run(@NotNull Iterator<Schedule> schedules) throws InterruptedException {
+        boolean checkpointsEnabled = Concurrency.isCheckpointsEnabled();
+        Concurrency.enableCheckpoints();
+        scenarioClasses.clear();
+
+        AtomicInteger laneNo = new AtomicInteger();
+        ExecutorService lanes = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "concusim-lane-" + laneNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            long[] counter = new long[1];
+            Set<String> reachedCheckpoints = ConcurrentHashMap.newKeySet();
+            List<Future<List<ScheduleResult>>> futures = new ArrayList<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                futures.add(lanes.submit(() -> runLane(schedules, counter, reachedCheckpoints)));
+            }
+
+            List<ScheduleResult> failures = new ArrayList<>();
+            for (Future<List<ScheduleResult>> future: futures) {
+                try {
+                    failures.addAll(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException)
+                        throw (RuntimeException) e.getCause();
+
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+
+            BatchReport report = new BatchReport(counter[0], failures, reachedCheckpoints);
+            log.info("{}", report);
+            return report;
+        } finally {
+            lanes.shutdownNow();
+            if (!checkpointsEnabled) {
+                Concurrency.disableCheckpoints();
+            }
+        }
+    }
+
+    /**
+     * Runs single schedule with fresh scenario and simulator. Checkpoints must be enabled.
+     *
+     * @param schedule schedule to run
+     * @return schedule result with zero index
+     */
+    public @NotNull ScheduleResult run(@NotNull Schedule schedule) {
+        return runOne(0, schedule);
+    }
+
+    /**
+     * @return names of scenario classes (with their superclasses) instantiated since the last batch has been started,
+     * lambdas are omitted
+     */
+    @NotNull Set<String> getScenarioClasses() {
+        return scenarioClasses;
+    }
+
+    private @NotNull List<ScheduleResult> runLane(
+        @NotNull Iterator<Schedule> schedules, @NotNull long[] counter, @NotNull Set<String> reachedCheckpoints)
+    {
+        List<ScheduleResult> failures = new ArrayList<>();
+
+        while (!Thread.currentThread().isInterrupted()) {
+            long index;
+            Schedule schedule;
+            synchronized (schedules) {
+                if (!schedules.hasNext())
+                    break;
+
+                schedule = schedules.next();
+                index = counter[0]++;
+            }
+
+            ScheduleResult result = runOne(index, schedule);
+            reachedCheckpoints.addAll(result.getReachedCheckpoints());
+            if (result.isFailed()) {
+                log.info("Schedule {} failed", result);
+                failures.add(result);
+            }
+        }
+
+        return failures;
+    }
+
+    @SuppressWarnings("ThrowableResultOfMethodCallIgnored")
+    private @NotNull ScheduleResult runOne(long index, @NotNull Schedule schedule) {
+        Throwable failure = null;
+        IScenario scenario = null;
+        ConcurrencySimulator simulator = new ConcurrencySimulator()
+            .withStepTimeoutMillis(stepTimeout);
+        try {
+            scenario = factory.create();
+            for (Class<?> c = scenario.getClass(); c != null && c != Object.class; c = c.getSuperclass()) {
+                if (!c.isSynthetic() && !c.getName().contains("$$Lambda")) {
+                    scenarioClasses.add(c.getName());
+                }
+            }
+            scenario.setUp(simulator);
+
+            simulator.start();
+            try {
+                schedule.applyTo(simulator);
+                simulator.go();
+            } catch (Throwable t) {
+                simulator.stop();
+                throw t;
+            }
+            // fails the schedule if some workers leaked, stop() above wouldn't mask failure of go()
+            simulator.close();
+
+            scenario.verify();
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            if (scenario != null) {
+                try {
+                    scenario.tearDown();
+                } catch (Throwable t) {
+                    if (failure == null) {
+                        failure = t;
+                    }
+                }
+            }
+        }
+
+        return new ScheduleResult(index, schedule, failure, simulator.getReachedCheckpoints());
+    }
+}
@@ -0,0 +1,9 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+public final class BudgetException extends RuntimeException {
+    public BudgetException(@NotNull String msg) {
+        super(msg);
+    }
+}
@@ -6,4 +6,20 @@ public final class CheckpointUtils {
     public static @NotNull String getFullName(@NotNull Class<?> clazz, @NotNull String name) {
         return clazz.getName() + "#" + name;
     }
+
+    /**
+     * Looks up checkpoint owner by binary name, e.g. anonymous class {@code Foo$1} which has no class literal.
+     * Used by code generated by {@link Schedule#toJava()}.
+     *
+     * @param className binary class name
+     * @return owner class
+     * @throws IllegalArgumentException if there is no such class
+     */
+    public static @NotNull Class<?> getOwner(@NotNull String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException(String.format("No class '%s'.", className), e);
+        }
+    }
 }
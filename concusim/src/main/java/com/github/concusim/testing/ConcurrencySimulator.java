@@ -2,36 +2,53 @@ package com.github.concusim.testing;
 
 import com.github.concusim.Concurrency;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.IntFunction;
 
 import static com.github.concusim.testing.CheckpointUtils.getFullName;
 
 /**
  * Concurrency testing helper. Provides facilities to model threads interleaving based on checkpoints.
  *
+ * Workers share simulated clock used by Concurrency.sleep, Concurrency.currentTimeNanos and Concurrency.await.
+ * The clock stands still while any running worker is busy and jumps forward as soon as all of them are sleeping.
+ *
+ * Simulator should be closed when it's no longer needed (see {@link #close()}), worker's threads are daemons
+ * and are unwound by force, so neither threads nor objects captured by workers outlive the simulator.
+ *
  * @see com.github.concusim.Concurrency
  */
-public final class ConcurrencySimulator {
+public final class ConcurrencySimulator implements AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(ConcurrencySimulator.class);
+    private static final long CONTENTION_SAMPLE_INTERVAL = 1;
 
     @SuppressWarnings("WeakerAccess")
     public final class StepBuilder {
-        private final WorkerThread thread;
+        private final List<WorkerThread> threads;
         private boolean concurrent = false;
 
-        StepBuilder(@NotNull WorkerThread thread) {
-            this.thread = thread;
+        StepBuilder(@NotNull List<WorkerThread> threads) {
+            this.threads = threads;
         }
 
         /**
-         * Specifies to run this step concurrently.
+         * Specifies to run this step concurrently. Members of a group always run concurrently with each other,
+         * this flag specifies whether the group runs concurrently with the previous step.
          *
          * @return step builder
          */
@@ -50,11 +67,14 @@ public final class ConcurrencySimulator {
             if (checkpoint.isEmpty())
                 throw new IllegalArgumentException("checkpoint must not be empty");
 
+            return till(getFullName(clazz, checkpoint));
+        }
+
+        @NotNull ConcurrencySimulator till(@NotNull String fullName) {
             if (!Concurrency.isCheckpointsEnabled())
                 throw new IllegalStateException("Checkpoints are disabled. Forget to call Concurrency.enableCheckpoints?");
 
-            steps.add(new Step(thread, getFullName(clazz, checkpoint), concurrent));
-            return ConcurrencySimulator.this;
+            return addSteps(fullName);
         }
 
         /**
@@ -63,14 +83,35 @@ public final class ConcurrencySimulator {
          * @return original concurrent runner
          */
         public @NotNull ConcurrencySimulator tillEnd() {
-            steps.add(new Step(thread, null, concurrent));
+            return addSteps(null);
+        }
+
+        private @NotNull ConcurrencySimulator addSteps(@Nullable String checkpoint) {
+            for (int i = 0; i < threads.size(); i++) {
+                steps.add(new Step(threads.get(i), checkpoint, concurrent || i > 0));
+            }
+            lastStepCount = threads.size();
             return ConcurrencySimulator.this;
         }
     }
 
-    private final List<WorkerThread> threads = new ArrayList<>();
+    private final Queue<WorkerThread> threads = new ConcurrentLinkedQueue<>();
+    private final Map<Runnable, WorkerThread> threadsByWorker = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final Map<String, WorkerThread> threadsByName = new ConcurrentHashMap<>();
+    private final Map<String, List<Runnable>> groups = new ConcurrentHashMap<>();
     private final List<Step> steps = new ArrayList<>();
+    private final Set<String> reachedCheckpoints = ConcurrentHashMap.newKeySet();
+    private final Queue<WorkerThread> failures = new ConcurrentLinkedQueue<>();
+    private int lastStepCount;
+    private final VirtualClock clock = new VirtualClock();
+    private List<StepMetrics> stepMetrics = Collections.emptyList();
+    private ContentionProfiler profiler;
+    private RaceDetector detector;
+    private int raceId;
     private long stepTimeout;
+    private final List<String> leakedWorkers = new ArrayList<>();
+    private volatile boolean started;
+    private volatile boolean stopped;
 
     /**
      * Constructs new ConcurrencySimulator with default step timeout (5sec).
@@ -107,29 +148,162 @@ public final class ConcurrencySimulator {
         return this;
     }
 
+    /**
+     * Attaches contention profiler. While steps are running the simulator samples blocked and waiting workers,
+     * and each worker reports its contention to the profiler at every checkpoint and at its end.
+     *
+     * @param profiler profiler to report to, might be shared by many simulators
+     * @return this
+     */
+    public @NotNull ConcurrencySimulator withContentionProfiler(@NotNull ContentionProfiler profiler) {
+        if (started)
+            throw new IllegalStateException("Simulator is already started.");
+
+        this.profiler = profiler;
+        threads.forEach(t -> t.trackContention(profiler));
+        return this;
+    }
+
+    /**
+     * Attaches data race detector. Firing a step and awaiting its end are happens-before edges
+     * between the simulator and the step's worker.
+     *
+     * @param detector detector to report accesses to
+     * @return this
+     */
+    public @NotNull ConcurrencySimulator withRaceDetector(@NotNull RaceDetector detector) {
+        if (started)
+            throw new IllegalStateException("Simulator is already started.");
+
+        this.detector = detector;
+        this.raceId = detector.register("<simulator>");
+        threads.forEach(t -> t.detectRaces(detector));
+        return this;
+    }
+
     /**
      * Adds new concurrent worker with specified body (as runnable) and name.
-     * Each worker will run in separate thread.
+     * Each worker will run in separate thread. If simulator is already started the worker's thread
+     * is started immediately and paused just before entering to worker's body.
      *
      * @param worker worker body
-     * @param name worker name
+     * @param name worker name, unique within the simulator
      * @return this
+     * @throws IllegalArgumentException if worker with the same name already exists
      */
     public @NotNull ConcurrencySimulator withConcurrentWorker(@NotNull Runnable worker, @NotNull String name) {
-        NamedWorker namedWorker = new NamedWorker(worker, name);
-        threads.add(new WorkerThread(namedWorker, stepTimeout));
+        if (!addWorker(worker, name))
+            throw new IllegalArgumentException(String.format("Worker '%s' already exists.", name));
+
         return this;
     }
 
     /**
      * Adds new concurrent worker with specified body (as runnable).
-     * Each worker will run in separate thread.
+     * Each worker will run in separate thread. Worker is named by {@code worker.toString()},
+     * suffixed by {@code #<n>} if the name is already taken (e.g. the same runnable is added twice).
      *
      * @param worker worker body
      * @return this
      */
     public @NotNull ConcurrencySimulator withConcurrentWorker(@NotNull Runnable worker) {
-        return withConcurrentWorker(worker, worker.toString());
+        String name = worker.toString();
+        for (int i = 2; !addWorker(worker, name); i++) {
+            name = worker.toString() + "#" + i;
+        }
+        return this;
+    }
+
+    /**
+     * @return false if worker with the same name already exists
+     */
+    private boolean addWorker(@NotNull Runnable worker, @NotNull String name) {
+        if (stopped)
+            throw new IllegalStateException("Simulator is already stopped.");
+
+        NamedWorker namedWorker = new NamedWorker(worker, name);
+        WorkerThread thread = new WorkerThread(namedWorker, stepTimeout, clock, reachedCheckpoints, failures);
+        if (threadsByName.putIfAbsent(name, thread) != null)
+            return false;
+
+        if (profiler != null) {
+            thread.trackContention(profiler);
+        }
+        if (detector != null) {
+            thread.detectRaces(detector);
+        }
+        threads.add(thread);
+        threadsByWorker.putIfAbsent(worker, thread);
+
+        if (started) {
+            thread.start();
+        }
+        return true;
+    }
+
+    /**
+     * Adds group of concurrent workers created by specified factory. Members are named {@code <name>[<index>]}
+     * and might be run all at once via {@link #runGroup(String)} or one by one via {@link #getGroup(String)}.
+     *
+     * @param name group name
+     * @param factory creates worker body by member index
+     * @param count count of members
+     * @return this
+     * @throws IllegalArgumentException if the group or a worker with member's name already exists
+     */
+    public @NotNull ConcurrencySimulator withConcurrentWorkers(
+        @NotNull String name, @NotNull IntFunction<Runnable> factory, int count)
+    {
+        if (count <= 0)
+            throw new IllegalArgumentException("count must be positive");
+
+        if (groups.containsKey(name))
+            throw new IllegalArgumentException(String.format("Group '%s' already exists.", name));
+
+        for (int i = 0; i < count; i++) {
+            if (threadsByName.containsKey(name + "[" + i + "]"))
+                throw new IllegalArgumentException(String.format("Worker '%s[%d]' already exists.", name, i));
+        }
+
+        List<Runnable> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Runnable member = factory.apply(i);
+            members.add(member);
+            withConcurrentWorker(member, name + "[" + i + "]");
+        }
+
+        groups.put(name, Collections.unmodifiableList(members));
+
+        return this;
+    }
+
+    /**
+     * Returns members of the group in order of creation.
+     *
+     * @param name group name
+     * @return group members
+     */
+    public @NotNull List<Runnable> getGroup(@NotNull String name) {
+        List<Runnable> members = groups.get(name);
+        if (members == null)
+            throw new IllegalStateException(String.format("No group named '%s'.", name));
+
+        return members;
+    }
+
+    /**
+     * Constructs step for all members of the group. Members run concurrently and the step finishes
+     * when every member reached the checkpoint or its end.
+     *
+     * @param name group name
+     * @return step builder
+     */
+    public @NotNull StepBuilder runGroup(@NotNull String name) {
+        List<Runnable> members = getGroup(name);
+
+        List<WorkerThread> threads = new ArrayList<>(members.size());
+        members.forEach(member -> threads.add(getThreadOf(member)));
+        return new StepBuilder(threads);
     }
 
     /**
@@ -140,13 +314,79 @@ public final class ConcurrencySimulator {
      * @return step builder
      */
     public @NotNull StepBuilder run(@NotNull Runnable worker) {
-        return new StepBuilder(getThreadOf(worker));
+        return new StepBuilder(Collections.singletonList(getThreadOf(worker)));
+    }
+
+    /**
+     * Constructs step for worker with specified name.
+     *
+     * @param name worker name
+     * @return step builder
+     */
+    public @NotNull StepBuilder run(@NotNull String name) {
+        return new StepBuilder(Collections.singletonList(getThreadOf(name)));
+    }
+
+    /**
+     * Sets wall time budget of the last defined step (of each member for group step),
+     * e.g. {@code run(worker).till(...).withinWallMillis(100)}.
+     * If budget is exceeded go() throws {@link BudgetException}.
+     *
+     * @param milliseconds wall time budget in milliseconds
+     * @return this
+     */
+    public @NotNull ConcurrencySimulator withinWallMillis(long milliseconds) {
+        lastSteps().forEach(step -> step.setWallBudget(TimeUnit.MILLISECONDS.toNanos(milliseconds)));
+        return this;
+    }
+
+    /**
+     * Sets CPU time budget of the last defined step.
+     * If budget is exceeded go() throws {@link BudgetException}.
+     *
+     * @param milliseconds CPU time budget in milliseconds
+     * @return this
+     */
+    public @NotNull ConcurrencySimulator withinCpuMillis(long milliseconds) {
+        lastSteps().forEach(step -> step.setCpuBudget(TimeUnit.MILLISECONDS.toNanos(milliseconds)));
+        return this;
+    }
+
+    /**
+     * Sets allocation budget of the last defined step.
+     * If budget is exceeded go() throws {@link BudgetException}.
+     *
+     * @param bytes allocation budget in bytes
+     * @return this
+     */
+    public @NotNull ConcurrencySimulator withinAllocBytes(long bytes) {
+        lastSteps().forEach(step -> step.setAllocBudget(bytes));
+        return this;
+    }
+
+    /**
+     * Returns metrics of steps executed by the last go() in order of definition.
+     *
+     * @return step metrics
+     */
+    public @NotNull List<StepMetrics> getStepMetrics() {
+        return stepMetrics;
+    }
+
+    /**
+     * Returns full names of all checkpoints reached by workers so far, including ones which didn't stop any step.
+     *
+     * @return reached checkpoints
+     */
+    public @NotNull Set<String> getReachedCheckpoints() {
+        return Collections.unmodifiableSet(reachedCheckpoints);
     }
 
     /**
      * Starts all worker's threads and pauses them just before entering to worker's body.
      */
     public void start() {
+        started = true;
         threads.forEach(Thread::start);
     }
 
@@ -156,11 +396,29 @@ public final class ConcurrencySimulator {
      * If method threw exception then it IS NOT possible to call go() again.
      *
      * @throws AggregatedException if at least one thread failed during it step
+     * @throws BudgetException if at least one step exceeded its budget
      */
     public void go() throws
         InterruptedException, TimeoutException,
-        AggregatedException, CheckpointException
+        AggregatedException, CheckpointException, BudgetException
     {
+        try {
+            doGo();
+        } finally {
+            List<StepMetrics> metrics = new ArrayList<>(steps.size());
+            for (Step step: steps) {
+                if (step.getMetrics() != null) {
+                    metrics.add(step.getMetrics());
+                }
+            }
+            stepMetrics = Collections.unmodifiableList(metrics);
+        }
+
+        steps.forEach(Step::validate);
+        steps.clear();
+    }
+
+    private void doGo() throws InterruptedException, TimeoutException, AggregatedException {
         for (int index = 0; index < steps.size(); ) {
             int count = 1;
             for (int i = index + 1; i < steps.size() && steps.get(i).isConcurrent(); i++) {
@@ -168,44 +426,132 @@ public final class ConcurrencySimulator {
             }
 
             CountDownLatch latch = new CountDownLatch(count);
+            clock.activate(count);
 
+            int first = index;
             for (; count > 0; index++, count--) {
-                steps.get(index).doIt(latch);
+                Step step = steps.get(index);
+                if (detector != null) {
+                    detector.handoff(raceId, step.getThread().getRaceId());
+                }
+                step.doIt(latch);
             }
 
-            if (!latch.await(stepTimeout, TimeUnit.MILLISECONDS))
+            List<Step> batch = steps.subList(first, index);
+            if (!awaitStep(latch, batch))
                 throw new TimeoutException();
 
+            if (detector != null) {
+                batch.forEach(step -> detector.handoff(step.getThread().getRaceId(), raceId));
+            }
+
+            // workers out of the batch might have failed too, e.g. timed out while parked at checkpoint
             AggregatedException.Builder builder = new AggregatedException.Builder();
-            threads.forEach(builder::addCauseIfAny);
+            for (WorkerThread failed; (failed = failures.poll()) != null; ) {
+                builder.addCauseIfAny(failed);
+            }
             builder.throwIfAny();
         }
-
-        steps.forEach(Step::validate);
-        steps.clear();
     }
 
     /**
-     * Signals all worker's threads to interrupt and tries to join.
+     * Aborts all workers and joins their threads within step timeout. Parked and sleeping workers unwind through
+     * their finally blocks, workers which are still alive after the timeout are reported as leaked.
+     * Afterwards the simulator drops all references to workers and steps. Subsequent calls do nothing.
      */
     public void stop() {
-        threads.forEach(Thread::interrupt);
+        if (stopped)
+            return;
+
+        stopped = true;
+        threads.forEach(WorkerThread::abort);
 
+        // interrupt is remembered and restored after all joins, otherwise every following join would throw at once
+        boolean interrupted = false;
+        long deadline = System.currentTimeMillis() + stepTimeout;
         for (WorkerThread t: threads) {
-            try {
-                t.join(stepTimeout);
-            } catch (InterruptedException e) {
-                log.info("{} => JOIN TIMED-OUT", t);
+            long remaining;
+            while (t.isAlive() && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    t.join(remaining);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            if (t.isAlive()) {
+                log.warn("{} => LEAKED", t);
+                leakedWorkers.add(t.getName());
             }
         }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        threads.clear();
+        threadsByWorker.clear();
+        threadsByName.clear();
+        groups.clear();
+        steps.clear();
+        failures.clear();
     }
 
-    private @NotNull WorkerThread getThreadOf(@NotNull Runnable worker) {
-        for (WorkerThread t: threads) {
-            if (t.getNamedWorker().getRunnable() == worker)
-                return t;
+    /**
+     * Stops the simulator, see {@link #stop()}.
+     *
+     * @throws IllegalStateException if some workers didn't stop within step timeout
+     */
+    @Override
+    public void close() {
+        stop();
+
+        if (!leakedWorkers.isEmpty())
+            throw new IllegalStateException("Workers didn't stop: " + String.join(", ", leakedWorkers));
+    }
+
+    /**
+     * Returns names of workers whose threads were still alive after stop().
+     *
+     * @return leaked workers
+     */
+    public @NotNull List<String> getLeakedWorkers() {
+        return Collections.unmodifiableList(leakedWorkers);
+    }
+
+    private boolean awaitStep(@NotNull CountDownLatch latch, @NotNull List<Step> batch) throws InterruptedException {
+        if (profiler == null)
+            return latch.await(stepTimeout, TimeUnit.MILLISECONDS);
+
+        long deadline = System.currentTimeMillis() + stepTimeout;
+        while (!latch.await(CONTENTION_SAMPLE_INTERVAL, TimeUnit.MILLISECONDS)) {
+            if (System.currentTimeMillis() >= deadline)
+                return false;
+
+            batch.forEach(step -> step.getThread().sampleContention());
         }
+        return true;
+    }
+
+    private @NotNull List<Step> lastSteps() {
+        if (steps.isEmpty())
+            throw new IllegalStateException("No step defined. Forget to call run(worker).till(...)?");
+
+        return steps.subList(steps.size() - lastStepCount, steps.size());
+    }
+
+    private @NotNull WorkerThread getThreadOf(@NotNull Runnable worker) {
+        WorkerThread t = threadsByWorker.get(worker);
+        if (t == null)
+            throw new IllegalStateException(String.format("No thread bound to '%s'.", worker));
+
+        return t;
+    }
+
+    private @NotNull WorkerThread getThreadOf(@NotNull String name) {
+        WorkerThread t = threadsByName.get(name);
+        if (t == null)
+            throw new IllegalStateException(String.format("No worker named '%s'.", name));
 
-        throw new IllegalStateException(String.format("No thread bound to '%s'.", worker));
+        return t;
     }
 }
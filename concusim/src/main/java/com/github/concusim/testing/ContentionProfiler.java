@@ -0,0 +1,90 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lock contention profiler. Collects how long workers were blocked or waiting between checkpoints
+ * and on which locks, aggregated per checkpoint segment.
+ *
+ * Profiler is thread-safe and might be shared by many simulators to aggregate contention across many runs,
+ * see {@link ConcurrencySimulator#withContentionProfiler(ContentionProfiler)}.
+ */
+public final class ContentionProfiler {
+    public static final String START = "<start>";
+    public static final String END = "<end>";
+
+    private final Map<String, SegmentContention> segments = new HashMap<>();
+
+    /**
+     * Constructs new profiler and enables thread contention monitoring if JVM supports it.
+     */
+    public ContentionProfiler() {
+        ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+        if (mxBean.isThreadContentionMonitoringSupported()) {
+            mxBean.setThreadContentionMonitoringEnabled(true);
+        }
+    }
+
+    /**
+     * Returns snapshot of collected segments ordered by total blocked and waited time descending.
+     *
+     * @return segments
+     */
+    public @NotNull List<SegmentContention> getSegments() {
+        List<SegmentContention> ret = new ArrayList<>();
+        synchronized (segments) {
+            segments.values().forEach(s -> ret.add(s.copy()));
+        }
+
+        ret.sort(Comparator.comparingLong((SegmentContention s) -> s.getBlockedMillis() + s.getWaitedMillis()).reversed());
+        return ret;
+    }
+
+    /**
+     * @return human readable report of collected segments
+     */
+    public @NotNull String getReport() {
+        StringBuilder sb = new StringBuilder(1024);
+
+        sb.append("Contention by checkpoint segment:\n");
+        for (SegmentContention segment: getSegments()) {
+            sb.append("  ").append(segment).append("\n");
+
+            segment.getLockSamples().entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(e -> sb.append("    ").append(e.getKey())
+                    .append(": ").append(e.getValue()).append(" samples\n"));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Clears collected segments.
+     */
+    public void reset() {
+        synchronized (segments) {
+            segments.clear();
+        }
+    }
+
+    void record(
+        @NotNull String from, @NotNull String to,
+        long blockedMillis, long blockedCount, long waitedMillis, long waitedCount,
+        @NotNull Map<String, Integer> locks)
+    {
+        synchronized (segments) {
+            segments
+                .computeIfAbsent(from + " -> " + to, key -> new SegmentContention(from, to))
+                .add(blockedMillis, blockedCount, waitedMillis, waitedCount, locks);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks contention of one worker's thread within current checkpoint segment and reports it to profiler.
+ *
+ * Methods resume, checkpoint, finish and sleep* are called by the worker's thread itself,
+ * method sample is called by simulator's thread while the worker is running.
+ */
+final class ContentionTracker {
+    private static final ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+
+    private final ContentionProfiler profiler;
+    private final long threadId;
+    private String from = ContentionProfiler.START;
+    private long blockedTime;
+    private long blockedCount;
+    private long waitedTime;
+    private long waitedCount;
+    private long sleptTime;
+    private long sleptCount;
+    private final Map<String, Integer> locks = new HashMap<>();
+
+    ContentionTracker(@NotNull ContentionProfiler profiler, long threadId) {
+        this.profiler = profiler;
+        this.threadId = threadId;
+    }
+
+    void resume() {
+        ThreadInfo info = mxBean.getThreadInfo(threadId);
+        if (info == null)
+            return;
+
+        blockedTime = info.getBlockedTime();
+        blockedCount = info.getBlockedCount();
+        waitedTime = info.getWaitedTime();
+        waitedCount = info.getWaitedCount();
+        sleptTime = 0;
+        sleptCount = 0;
+
+        synchronized (locks) {
+            locks.clear();
+        }
+    }
+
+    void checkpoint(@NotNull String to) {
+        report(to);
+        from = to;
+        resume();
+    }
+
+    void finish() {
+        report(ContentionProfiler.END);
+    }
+
+    /**
+     * Simulated sleeps are implemented via Object.wait, so they are excluded from waited time.
+     */
+    long sleepStarted() {
+        ThreadInfo info = mxBean.getThreadInfo(threadId);
+        return info != null ? info.getWaitedTime() : 0;
+    }
+
+    void sleepFinished(long waitedTimeBefore) {
+        ThreadInfo info = mxBean.getThreadInfo(threadId);
+        if (info == null)
+            return;
+
+        sleptTime += info.getWaitedTime() - waitedTimeBefore;
+        sleptCount++;
+    }
+
+    void sample() {
+        ThreadInfo info = mxBean.getThreadInfo(threadId);
+        if (info == null)
+            return;
+
+        switch (info.getThreadState()) {
+            case BLOCKED:
+            case WAITING:
+            case TIMED_WAITING:
+                break;
+            default:
+                return;
+        }
+
+        LockInfo lock = info.getLockInfo();
+        if (lock == null || isSimulatorLock(lock.getClassName()))
+            return;
+
+        String key = info.getLockOwnerName() != null
+            ? lock.getClassName() + " held by " + info.getLockOwnerName()
+            : lock.getClassName();
+
+        synchronized (locks) {
+            locks.merge(key, 1, Integer::sum);
+        }
+    }
+
+    private void report(@NotNull String to) {
+        ThreadInfo info = mxBean.getThreadInfo(threadId);
+        if (info == null)
+            return;
+
+        Map<String, Integer> samples;
+        synchronized (locks) {
+            samples = new HashMap<>(locks);
+        }
+
+        profiler.record(
+            from, to,
+            Math.max(0, info.getBlockedTime() - blockedTime),
+            info.getBlockedCount() - blockedCount,
+            Math.max(0, info.getWaitedTime() - waitedTime - sleptTime),
+            Math.max(0, info.getWaitedCount() - waitedCount - sleptCount),
+            samples);
+    }
+
+    private static boolean isSimulatorLock(@NotNull String className) {
+        return
+            className.equals(Trigger.class.getName()) ||
+            className.equals(VirtualClock.class.getName());
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * Pair of conflicting accesses to the same field which are not ordered by happens-before relation.
+ */
+public final class DataRace {
+    public enum Kind {
+        WRITE_WRITE, WRITE_READ, READ_WRITE
+    }
+
+    private final String field;
+    private final Kind kind;
+    private final String previousWorker;
+    private final String currentWorker;
+
+    DataRace(@NotNull String field, @NotNull Kind kind, @NotNull String previousWorker, @NotNull String currentWorker) {
+        this.field = field;
+        this.kind = kind;
+        this.previousWorker = previousWorker;
+        this.currentWorker = currentWorker;
+    }
+
+    /**
+     * @return field name qualified by class name of its owner, e.g. {@code MyService.counter}
+     */
+    public @NotNull String getField() {
+        return field;
+    }
+
+    /**
+     * @return kind of conflict, previous access first
+     */
+    public @NotNull Kind getKind() {
+        return kind;
+    }
+
+    public @NotNull String getPreviousWorker() {
+        return previousWorker;
+    }
+
+    public @NotNull String getCurrentWorker() {
+        return currentWorker;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (other == null || other.getClass() != getClass())
+            return false;
+
+        DataRace that = (DataRace) other;
+        return
+            field.equals(that.field) && kind == that.kind &&
+            previousWorker.equals(that.previousWorker) && currentWorker.equals(that.currentWorker);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(field, kind, previousWorker, currentWorker);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s race on %s between %s and %s", kind, field, previousWorker, currentWorker);
+    }
+}
@@ -0,0 +1,282 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Persistent local cache of batch results. Entry is keyed by hash of scenario id and schedules and remembers
+ * bytecode hashes of the scenario classes and of the classes which own the checkpoints reached during the run.
+ * Scenarios implemented as lambdas can't be hashed, so changes of their code aren't detected. While none of
+ * these classes changed the cached report is returned instead of running the batch again, optionally after
+ * re-running a few randomly chosen schedules (spot checks). Any mismatch causes full re-run.
+ *
+ * <pre>
+ * BatchReport report = new ExplorationCache(Paths.get("build/concusim-cache"))
+ *     .withSpotChecks(3)
+ *     .run("myService-lostUpdate", new BatchRunner(MyScenario::new), Paths.get("schedules.txt"));
+ * </pre>
+ */
+public final class ExplorationCache {
+    private static final Logger log = LoggerFactory.getLogger(ExplorationCache.class);
+
+    private static final String CLASS_PREFIX = "class.";
+    private static final String CHECKPOINT_PREFIX = "checkpoint.";
+    private static final String FAILURE_PREFIX = "failure.";
+
+    private final Path directory;
+    private int spotChecks;
+    private final Random random = new Random();
+
+    /**
+     * Constructs new ExplorationCache without spot checks.
+     *
+     * @param directory cache directory, created on demand
+     */
+    public ExplorationCache(@NotNull Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Sets count of randomly chosen schedules re-run on cache hit.
+     *
+     * @param count count of spot checks
+     * @return this
+     */
+    public @NotNull ExplorationCache withSpotChecks(int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("count must be non-negative");
+
+        this.spotChecks = count;
+        return this;
+    }
+
+    /**
+     * Returns cached report if scenario and classes it touches didn't change, otherwise runs all schedules
+     * and caches the result.
+     *
+     * @param scenarioId stable scenario identifier, part of cache key
+     * @param runner batch runner
+     * @param scheduleFile schedule file, its content is part of cache key
+     * @return batch report
+     * @throws IOException if schedule file or cache couldn't be read or written
+     * @throws InterruptedException if current thread has been interrupted
+     */
+    public @NotNull BatchReport run(
+        @NotNull String scenarioId, @NotNull BatchRunner runner, @NotNull Path scheduleFile)
+        throws IOException, InterruptedException
+    {
+        byte[] schedules = Files.readAllBytes(scheduleFile);
+        String key = hash(scenarioId.getBytes(StandardCharsets.UTF_8), schedules);
+        Path entryFile = directory.resolve(key + ".properties");
+
+        Properties entry = load(entryFile);
+        if (entry != null && isUpToDate(entry) && passesSpotChecks(entry, runner, schedules)) {
+            log.info("{} => cache hit", scenarioId);
+            return toReport(entry);
+        }
+
+        log.info("{} => exploring", scenarioId);
+        BatchReport report = runner.run(readerOf(schedules));
+        store(entryFile, toEntry(scenarioId, report, runner.getScenarioClasses()));
+        return report;
+    }
+
+    private boolean isUpToDate(@NotNull Properties entry) {
+        for (String key: entry.stringPropertyNames()) {
+            if (!key.startsWith(CLASS_PREFIX))
+                continue;
+
+            String className = key.substring(CLASS_PREFIX.length());
+            if (!entry.getProperty(key).equals(hashOfClass(className))) {
+                log.info("{} => changed", className);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean passesSpotChecks(
+        @NotNull Properties entry, @NotNull BatchRunner runner, @NotNull byte[] schedules) throws InterruptedException
+    {
+        if (spotChecks == 0)
+            return true;
+
+        Map<Long, String> signatures = new HashMap<>();
+        for (ScheduleResult failure: toReport(entry).getFailures()) {
+            signatures.put(failure.getIndex(), failure.getFailureSignature());
+        }
+
+        // reservoir sampling of schedules to check
+        List<Schedule> sample = new ArrayList<>(spotChecks);
+        List<Long> indexes = new ArrayList<>(spotChecks);
+        ScheduleReader reader = readerOf(schedules);
+        for (long index = 0; reader.hasNext(); index++) {
+            Schedule schedule = reader.next();
+            if (sample.size() < spotChecks) {
+                sample.add(schedule);
+                indexes.add(index);
+            } else {
+                long slot = (long) (random.nextDouble() * (index + 1));
+                if (slot < spotChecks) {
+                    sample.set((int) slot, schedule);
+                    indexes.set((int) slot, index);
+                }
+            }
+        }
+
+        Map<Long, String> actual = new HashMap<>();
+        for (ScheduleResult failure: runner.run(sample.iterator()).getFailures()) {
+            actual.put(indexes.get((int) failure.getIndex()), failure.getFailureSignature());
+        }
+
+        for (Long index: indexes) {
+            String expected = signatures.get(index);
+            String got = actual.get(index);
+            if (expected != null ? !expected.equals(got) : got != null) {
+                log.info("Spot check of schedule #{} failed: expected {}, got {}", index, expected, got);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static @NotNull BatchReport toReport(@NotNull Properties entry) {
+        List<ScheduleResult> failures = new ArrayList<>();
+        Set<String> checkpoints = new HashSet<>();
+
+        for (String key: entry.stringPropertyNames()) {
+            if (key.startsWith(CHECKPOINT_PREFIX)) {
+                checkpoints.add(entry.getProperty(key));
+            } else if (key.startsWith(FAILURE_PREFIX) && key.endsWith(".signature")) {
+                String prefix = key.substring(0, key.length() - "signature".length());
+                failures.add(new ScheduleResult(
+                    Long.parseLong(entry.getProperty(prefix + "index")),
+                    Schedule.parse(entry.getProperty(prefix + "schedule")),
+                    entry.getProperty(key)));
+            }
+        }
+
+        return new BatchReport(Long.parseLong(entry.getProperty("total")), failures, checkpoints);
+    }
+
+    private static @NotNull Properties toEntry(
+        @NotNull String scenarioId, @NotNull BatchReport report, @NotNull Set<String> scenarioClasses)
+    {
+        Properties entry = new Properties();
+        entry.setProperty("scenario", scenarioId);
+        entry.setProperty("total", Long.toString(report.getTotal()));
+
+        Set<String> classes = new TreeSet<>(scenarioClasses);
+        int n = 0;
+        for (String checkpoint: report.getReachedCheckpoints()) {
+            entry.setProperty(CHECKPOINT_PREFIX + n++, checkpoint);
+            classes.add(checkpoint.substring(0, checkpoint.lastIndexOf('#')));
+        }
+        for (String className: classes) {
+            entry.setProperty(CLASS_PREFIX + className, hashOfClass(className));
+        }
+
+        n = 0;
+        for (ScheduleResult failure: report.getFailures()) {
+            String prefix = FAILURE_PREFIX + n++ + ".";
+            entry.setProperty(prefix + "index", Long.toString(failure.getIndex()));
+            entry.setProperty(prefix + "signature", failure.getFailureSignature());
+            entry.setProperty(prefix + "schedule", failure.getSchedule().toString());
+        }
+
+        return entry;
+    }
+
+    private static @Nullable Properties load(@NotNull Path file) throws IOException {
+        if (!Files.exists(file))
+            return null;
+
+        Properties entry = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            entry.load(in);
+        }
+        return entry;
+    }
+
+    private void store(@NotNull Path file, @NotNull Properties entry) throws IOException {
+        Files.createDirectories(directory);
+
+        Path temp = Files.createTempFile(directory, "entry", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            entry.store(out, "concusim exploration cache");
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static @NotNull ScheduleReader readerOf(@NotNull byte[] schedules) {
+        return new ScheduleReader(new StringReader(new String(schedules, StandardCharsets.UTF_8)));
+    }
+
+    private static @NotNull String hashOfClass(@NotNull String className) {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null) {
+            loader = ExplorationCache.class.getClassLoader();
+        }
+
+        try (InputStream in = loader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+            if (in == null)
+                return "missing";
+
+            MessageDigest digest = newDigest();
+            byte[] buffer = new byte[8192];
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                digest.update(buffer, 0, read);
+            }
+            return toHex(digest.digest());
+        } catch (IOException e) {
+            return "unreadable";
+        }
+    }
+
+    private static @NotNull String hash(@NotNull byte[]... parts) {
+        MessageDigest digest = newDigest();
+        for (byte[] part: parts) {
+            digest.update(part);
+            digest.update((byte) 0);
+        }
+        return toHex(digest.digest());
+    }
+
+    private static @NotNull MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static @NotNull String toHex(@NotNull byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b: bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Concurrency scenario which might be run against many schedules, see {@link BatchRunner}.
+ * Each run uses fresh scenario instance created by {@link IScenarioFactory}.
+ */
+public interface IScenario {
+
+    /**
+     * Prepares scenario state and registers named workers in the simulator.
+     * Workers are referenced by name in schedules.
+     *
+     * @param simulator fresh simulator
+     * @throws Exception if set up failed
+     */
+    void setUp(@NotNull ConcurrencySimulator simulator) throws Exception;
+
+    /**
+     * Called if schedule has been run without exceptions. Might be used to check scenario invariants.
+     *
+     * @throws Exception if invariant is violated
+     */
+    default void verify() throws Exception {
+    }
+
+    /**
+     * Releases scenario state. Called after each run regardless of its outcome.
+     *
+     * @throws Exception if tear down failed
+     */
+    default void tearDown() throws Exception {
+    }
+}
@@ -0,0 +1,12 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Creates fresh scenario for each schedule run. Must be thread-safe since schedules might run in parallel.
+ */
+@FunctionalInterface
+public interface IScenarioFactory {
+
+    @NotNull IScenario create() throws Exception;
+}
@@ -0,0 +1,250 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Happens-before data race detector (FastTrack algorithm). Tracks accesses denoted by
+ * {@code Concurrency.read/write} and reports pairs of conflicting accesses which are not ordered by:
+ * <ul>
+ *     <li>simulator handoffs - everything done before a step is fired happens-before the step,
+ *     the step happens-before everything done after it reached its checkpoint or end;</li>
+ *     <li>synchronization denoted by {@code Concurrency.acquire/release};</li>
+ *     <li>task submission to {@link SimulatedExecutorService}.</li>
+ * </ul>
+ *
+ * Last write and, while reads are ordered, last read of each field are kept as an epoch (clock of one thread),
+ * full vector clock of reads is allocated only for fields read concurrently and dropped on the next write.
+ *
+ * Shadow state of accessed objects and locks is keyed by identity and held weakly, so it's dropped once the object
+ * has been collected. Each field state is guarded by its own monitor, clock of a thread is modified either by the
+ * thread itself or by handoff while the thread is paused, so accesses of different fields don't contend.
+ *
+ * Detector is supposed to be used by one simulator, see {@link ConcurrencySimulator#withRaceDetector(RaceDetector)}.
+ */
+public final class RaceDetector {
+    private static final class FieldState {
+        long write;
+        long read;
+        VectorClock reads;
+    }
+
+    /**
+     * Weak reference compared by identity of referent, cleared key is equal only to itself.
+     */
+    private static final class IdentityKey extends WeakReference<Object> {
+        private final int hash;
+
+        IdentityKey(@NotNull Object referent, @NotNull ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this)
+                return true;
+
+            if (!(other instanceof IdentityKey))
+                return false;
+
+            Object referent = get();
+            return referent != null && referent == ((IdentityKey) other).get();
+        }
+    }
+
+    private final List<String> names = new CopyOnWriteArrayList<>();
+    private final List<VectorClock> clocks = new CopyOnWriteArrayList<>();
+    private final Map<IdentityKey, Map<String, FieldState>> fields = new ConcurrentHashMap<>();
+    private final Map<IdentityKey, VectorClock> locks = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    private final Set<DataRace> races = new LinkedHashSet<>();
+
+    /**
+     * Returns detected races in order of detection, each distinct race is reported once.
+     *
+     * @return detected races
+     */
+    public @NotNull List<DataRace> getRaces() {
+        synchronized (races) {
+            return new ArrayList<>(races);
+        }
+    }
+
+    /**
+     * @return human readable report of detected races
+     */
+    public @NotNull String getReport() {
+        StringBuilder sb = new StringBuilder(1024);
+
+        sb.append("Data races:\n");
+        for (DataRace race: getRaces()) {
+            sb.append("  ").append(race).append("\n");
+        }
+
+        return sb.toString();
+    }
+
+    synchronized int register(@NotNull String name) {
+        int tid = clocks.size();
+        VectorClock clock = new VectorClock(tid + 1);
+        clock.set(tid, 1);
+
+        names.add(name);
+        clocks.add(clock);
+        return tid;
+    }
+
+    /**
+     * Everything done by thread {@code from} so far happens-before everything done by thread {@code to} from now on.
+     */
+    synchronized void handoff(int from, int to) {
+        clocks.get(to).join(clocks.get(from));
+        clocks.get(from).increment(from);
+    }
+
+    void acquire(int tid, @NotNull Object lock) {
+        VectorClock released = locks.get(new IdentityKey(lock, collected));
+        if (released != null) {
+            synchronized (released) {
+                clocks.get(tid).join(released);
+            }
+        }
+    }
+
+    void release(int tid, @NotNull Object lock) {
+        expungeCollected();
+
+        VectorClock clock = clocks.get(tid);
+        VectorClock released = locks.computeIfAbsent(new IdentityKey(lock, collected), k -> new VectorClock(0));
+        synchronized (released) {
+            released.join(clock);
+        }
+        clock.increment(tid);
+    }
+
+    void read(int tid, @NotNull Object target, @NotNull String field) {
+        VectorClock clock = clocks.get(tid);
+        long epoch = epoch(tid, clock.get(tid));
+        FieldState state = stateOf(target, field);
+
+        synchronized (state) {
+            read(tid, clock, epoch, state, target, field);
+        }
+    }
+
+    private void read(
+        int tid, @NotNull VectorClock clock, long epoch, @NotNull FieldState state,
+        @NotNull Object target, @NotNull String field)
+    {
+
+        if (state.reads == null ? state.read == epoch : state.reads.get(tid) == clock.get(tid))
+            return;
+
+        if (!isBefore(state.write, clock)) {
+            report(target, field, DataRace.Kind.WRITE_READ, tidOf(state.write), tid);
+        }
+
+        if (state.reads != null) {
+            state.reads.set(tid, clock.get(tid));
+        } else if (isBefore(state.read, clock)) {
+            state.read = epoch;
+        } else {
+            state.reads = new VectorClock(clocks.size());
+            state.reads.set(tidOf(state.read), clockOf(state.read));
+            state.reads.set(tid, clock.get(tid));
+        }
+    }
+
+    void write(int tid, @NotNull Object target, @NotNull String field) {
+        VectorClock clock = clocks.get(tid);
+        long epoch = epoch(tid, clock.get(tid));
+        FieldState state = stateOf(target, field);
+
+        synchronized (state) {
+            write(tid, clock, epoch, state, target, field);
+        }
+    }
+
+    private void write(
+        int tid, @NotNull VectorClock clock, long epoch, @NotNull FieldState state,
+        @NotNull Object target, @NotNull String field)
+    {
+
+        if (state.write == epoch)
+            return;
+
+        if (!isBefore(state.write, clock)) {
+            report(target, field, DataRace.Kind.WRITE_WRITE, tidOf(state.write), tid);
+        }
+
+        if (state.reads != null) {
+            int reader = state.reads.firstNotBefore(clock);
+            if (reader >= 0) {
+                report(target, field, DataRace.Kind.READ_WRITE, reader, tid);
+            }
+            state.reads = null;
+            state.read = 0;
+        } else if (!isBefore(state.read, clock)) {
+            report(target, field, DataRace.Kind.READ_WRITE, tidOf(state.read), tid);
+        }
+
+        state.write = epoch;
+    }
+
+    private @NotNull FieldState stateOf(@NotNull Object target, @NotNull String field) {
+        expungeCollected();
+
+        return fields
+            .computeIfAbsent(new IdentityKey(target, collected), k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(field, f -> new FieldState());
+    }
+
+    private void expungeCollected() {
+        for (Reference<?> key = collected.poll(); key != null; key = collected.poll()) {
+            fields.remove(key);
+            locks.remove(key);
+        }
+    }
+
+    private void report(
+        @NotNull Object target, @NotNull String field, @NotNull DataRace.Kind kind, int previous, int current)
+    {
+        Class<?> owner = target instanceof Class ? (Class<?>) target : target.getClass();
+        DataRace race = new DataRace(owner.getSimpleName() + "." + field, kind, names.get(previous), names.get(current));
+        synchronized (races) {
+            races.add(race);
+        }
+    }
+
+    private static long epoch(int tid, int clock) {
+        return ((long) clock << 32) | tid;
+    }
+
+    private static int tidOf(long epoch) {
+        return (int) epoch;
+    }
+
+    private static int clockOf(long epoch) {
+        return (int) (epoch >>> 32);
+    }
+
+    private static boolean isBefore(long epoch, @NotNull VectorClock clock) {
+        return clockOf(epoch) <= clock.get(tidOf(epoch));
+    }
+}
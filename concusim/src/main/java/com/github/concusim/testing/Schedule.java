@@ -0,0 +1,154 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sequence of steps which might be stored in compact text format and applied to a simulator.
+ *
+ * Text format has one step per line: {@code <worker> <checkpoint|end> [parallel]}, where checkpoint is a full
+ * checkpoint name (see {@link CheckpointUtils#getFullName}). Lines starting with '#' are comments.
+ * Schedules in a file are separated by blank lines, see {@link ScheduleReader}.
+ *
+ * <pre>
+ * A com.github.concusim.sample.MyService#beforeCommit
+ * B end
+ * A end
+ * </pre>
+ */
+public final class Schedule {
+    private final List<ScheduleStep> steps;
+
+    public Schedule(@NotNull List<ScheduleStep> steps) {
+        if (steps.isEmpty())
+            throw new IllegalArgumentException("steps must not be empty");
+
+        this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+    }
+
+    public @NotNull List<ScheduleStep> getSteps() {
+        return steps;
+    }
+
+    public int size() {
+        return steps.size();
+    }
+
+    /**
+     * Defines schedule's steps in the simulator. Call {@link ConcurrencySimulator#go()} to execute them.
+     *
+     * @param simulator simulator with workers named as in schedule
+     */
+    public void applyTo(@NotNull ConcurrencySimulator simulator) {
+        steps.forEach(step -> step.applyTo(simulator));
+    }
+
+    /**
+     * Parses schedule from text format.
+     *
+     * @param text schedule text
+     * @return schedule
+     * @throws IllegalArgumentException if text is malformed
+     */
+    public static @NotNull Schedule parse(@NotNull String text) {
+        List<ScheduleStep> steps = new ArrayList<>();
+
+        String[] lines = text.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            ScheduleStep step = parseStep(lines[i], i + 1);
+            if (step != null) {
+                steps.add(step);
+            }
+        }
+
+        return new Schedule(steps);
+    }
+
+    static @Nullable ScheduleStep parseStep(@NotNull String line, int lineNo) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#"))
+            return null;
+
+        String[] tokens = trimmed.split("\\s+");
+        if (tokens.length < 2 || tokens.length > 3 || tokens.length == 3 && !tokens[2].equals(ScheduleStep.PARALLEL))
+            throw new IllegalArgumentException(String.format("Malformed schedule step at line %d: '%s'.", lineNo, line));
+
+        return new ScheduleStep(tokens[0], tokens[1].equals(ScheduleStep.END) ? null : tokens[1], tokens.length == 3);
+    }
+
+    /**
+     * Renders schedule as Java code which defines the same steps via {@link ConcurrencySimulator} fluent API.
+     *
+     * @return pasteable Java code
+     */
+    public @NotNull String toJava() {
+        StringBuilder sb = new StringBuilder(steps.size() * 96);
+
+        sb.append("simulator\n");
+        for (ScheduleStep step: steps) {
+            sb.append("    .run(\"").append(step.getWorker()).append("\")");
+
+            if (step.isParallel()) {
+                sb.append(".parallel()");
+            }
+
+            String checkpoint = step.getCheckpoint();
+            int separator = checkpoint != null ? checkpoint.lastIndexOf('#') : -1;
+            if (separator > 0) {
+                sb.append(".till(")
+                    .append(toClassLiteral(checkpoint.substring(0, separator))).append(", \"")
+                    .append(checkpoint.substring(separator + 1)).append("\")");
+            } else {
+                sb.append(".tillEnd()");
+            }
+
+            sb.append("\n");
+        }
+        sb.append("    .go();\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * Nested classes are referenced by canonical name, anonymous and local ones (e.g. {@code Foo$1}) don't have it,
+     * so they are looked up by binary name via {@link CheckpointUtils#getOwner(String)} (unlike Class.forName
+     * it doesn't throw checked exception).
+     */
+    private static @NotNull String toClassLiteral(@NotNull String className) {
+        String[] parts = className.split("\\$", -1);
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].isEmpty() || !Character.isJavaIdentifierStart(parts[i].charAt(0)))
+                return CheckpointUtils.class.getName() + ".getOwner(\"" + className + "\")";
+        }
+        return className.replace('$', '.') + ".class";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return
+            this == other ||
+            other != null && other.getClass() == getClass() &&
+            steps.equals(((Schedule) other).steps);
+    }
+
+    @Override
+    public int hashCode() {
+        return steps.hashCode();
+    }
+
+    /**
+     * @return schedule in text format, one step per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(steps.size() * 64);
+        for (ScheduleStep step: steps) {
+            sb.append(step).append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,202 @@
+package com.github.concusim.testing;
+
+import com.github.concusim.Concurrency;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimizes failing schedule by delta debugging: removes steps and merges adjacent steps of the same worker
+ * while the schedule still fails with the same signature (see {@link ScheduleResult#getFailureSignature()}).
+ * Candidates of each round are run in parallel.
+ *
+ * <pre>
+ * Schedule minimal = new ScheduleMinimizer(new BatchRunner(MyScenario::new)).minimize(failing);
+ * System.out.println(minimal.toJava());
+ * </pre>
+ */
+public final class ScheduleMinimizer {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleMinimizer.class);
+
+    private final BatchRunner runner;
+    private int parallelism;
+
+    /**
+     * Constructs new ScheduleMinimizer with parallelism equal to available processors.
+     *
+     * @param runner runner used to run candidates
+     */
+    public ScheduleMinimizer(@NotNull BatchRunner runner) {
+        this.runner = runner;
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Sets count of candidates run concurrently.
+     *
+     * @param parallelism count of concurrent candidates
+     * @return this
+     */
+    public @NotNull ScheduleMinimizer withParallelism(int parallelism) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("parallelism must be positive");
+
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Finds the shortest schedule (1-minimal in terms of steps) which fails the same way as the specified one.
+     *
+     * @param failing failing schedule
+     * @return minimized schedule
+     * @throws IllegalArgumentException if specified schedule doesn't fail
+     * @throws InterruptedException if current thread has been interrupted
+     */
+    public @NotNull Schedule minimize(@NotNull Schedule failing) throws InterruptedException {
+        boolean checkpointsEnabled = Concurrency.isCheckpointsEnabled();
+        Concurrency.enableCheckpoints();
+
+        AtomicInteger laneNo = new AtomicInteger();
+        ExecutorService lanes = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "concusim-minimizer-" + laneNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            String signature = runner.run(failing).getFailureSignature();
+            if (signature == null)
+                throw new IllegalArgumentException("Schedule doesn't fail:\n" + failing);
+
+            log.info("Minimizing schedule of {} steps failing with {}", failing.size(), signature);
+
+            List<ScheduleStep> steps = merge(new ArrayList<>(failing.getSteps()), signature, lanes);
+            steps = reduce(steps, signature, lanes);
+            steps = merge(steps, signature, lanes);
+
+            Schedule minimal = new Schedule(normalize(steps));
+            log.info("Minimized schedule to {} steps:\n{}", minimal.size(), minimal);
+            return minimal;
+        } finally {
+            lanes.shutdownNow();
+            if (!checkpointsEnabled) {
+                Concurrency.disableCheckpoints();
+            }
+        }
+    }
+
+    /**
+     * Delta debugging: splits steps into n chunks and tries each chunk alone and each complement.
+     */
+    private @NotNull List<ScheduleStep> reduce(
+        @NotNull List<ScheduleStep> steps, @NotNull String signature, @NotNull ExecutorService lanes)
+        throws InterruptedException
+    {
+        int n = 2;
+        while (steps.size() >= 2) {
+            List<List<ScheduleStep>> candidates = new ArrayList<>(2 * n);
+
+            int chunk = (steps.size() + n - 1) / n;
+            for (int from = 0; from < steps.size(); from += chunk) {
+                candidates.add(new ArrayList<>(steps.subList(from, Math.min(from + chunk, steps.size()))));
+            }
+            int subsets = candidates.size();
+            for (int from = 0; from < steps.size(); from += chunk) {
+                List<ScheduleStep> complement = new ArrayList<>(steps.subList(0, from));
+                complement.addAll(steps.subList(Math.min(from + chunk, steps.size()), steps.size()));
+                candidates.add(complement);
+            }
+
+            int found = findFirstReproducing(candidates, signature, lanes);
+            if (found < 0) {
+                if (n >= steps.size())
+                    break;
+
+                n = Math.min(2 * n, steps.size());
+                continue;
+            }
+
+            steps = candidates.get(found);
+            n = found < subsets ? 2 : Math.max(n - 1, 2);
+        }
+
+        return steps;
+    }
+
+    /**
+     * Merges adjacent steps of the same worker: {@code A till X; A till Y} becomes {@code A till Y}.
+     */
+    private @NotNull List<ScheduleStep> merge(
+        @NotNull List<ScheduleStep> steps, @NotNull String signature, @NotNull ExecutorService lanes)
+        throws InterruptedException
+    {
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+
+            List<List<ScheduleStep>> candidates = new ArrayList<>();
+            for (int i = 0; i + 1 < steps.size(); i++) {
+                ScheduleStep step = steps.get(i);
+                if (step.getCheckpoint() == null || !step.getWorker().equals(steps.get(i + 1).getWorker()))
+                    continue;
+
+                List<ScheduleStep> candidate = new ArrayList<>(steps);
+                candidate.remove(i);
+                candidate.set(i, candidate.get(i).withParallel(step.isParallel()));
+                candidates.add(candidate);
+            }
+
+            int found = findFirstReproducing(candidates, signature, lanes);
+            if (found >= 0) {
+                steps = candidates.get(found);
+                merged = true;
+            }
+        }
+
+        return steps;
+    }
+
+    private int findFirstReproducing(
+        @NotNull List<List<ScheduleStep>> candidates, @NotNull String signature, @NotNull ExecutorService lanes)
+        throws InterruptedException
+    {
+        List<Callable<String>> tasks = new ArrayList<>(candidates.size());
+        for (List<ScheduleStep> candidate: candidates) {
+            Schedule schedule = toSchedule(candidate);
+            tasks.add(() -> schedule != null ? runner.run(schedule).getFailureSignature() : null);
+        }
+
+        List<Future<String>> futures = lanes.invokeAll(tasks);
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                if (signature.equals(futures.get(i).get()))
+                    return i;
+            } catch (ExecutionException e) {
+                log.warn("Candidate couldn't be run", e.getCause());
+            }
+        }
+
+        return -1;
+    }
+
+    private static @Nullable Schedule toSchedule(@NotNull List<ScheduleStep> steps) {
+        return steps.isEmpty() ? null : new Schedule(normalize(steps));
+    }
+
+    private static @NotNull List<ScheduleStep> normalize(@NotNull List<ScheduleStep> steps) {
+        List<ScheduleStep> ret = new ArrayList<>(steps);
+        ret.set(0, ret.get(0).withParallel(false));
+        return ret;
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams schedules from text source. Schedules are separated by one or more blank lines,
+ * see {@link Schedule} for step format.
+ */
+public final class ScheduleReader implements Iterator<Schedule>, Closeable {
+    private final BufferedReader reader;
+    private int lineNo;
+    private Schedule next;
+
+    public ScheduleReader(@NotNull Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public @NotNull Schedule next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        Schedule ret = next;
+        next = null;
+        return ret;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Schedule read() throws IOException {
+        List<ScheduleStep> steps = new ArrayList<>();
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+
+            if (line.trim().isEmpty()) {
+                if (!steps.isEmpty())
+                    break;
+
+                continue;
+            }
+
+            ScheduleStep step = Schedule.parseStep(line, lineNo);
+            if (step != null) {
+                steps.add(step);
+            }
+        }
+
+        return steps.isEmpty() ? null : new Schedule(steps);
+    }
+}
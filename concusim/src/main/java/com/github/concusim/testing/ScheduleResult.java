@@ -0,0 +1,93 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Outcome of running one schedule against a scenario.
+ */
+public final class ScheduleResult {
+    private final long index;
+    private final Schedule schedule;
+    private final Throwable failure;
+    private final String signature;
+    private final Set<String> reachedCheckpoints;
+
+    ScheduleResult(
+        long index, @NotNull Schedule schedule,
+        @Nullable Throwable failure, @NotNull Set<String> reachedCheckpoints)
+    {
+        this.index = index;
+        this.schedule = schedule;
+        this.failure = failure;
+        this.signature = failure != null ? signatureOf(failure) : null;
+        this.reachedCheckpoints = reachedCheckpoints;
+    }
+
+    ScheduleResult(long index, @NotNull Schedule schedule, @Nullable String signature) {
+        this.index = index;
+        this.schedule = schedule;
+        this.failure = null;
+        this.signature = signature;
+        this.reachedCheckpoints = Collections.emptySet();
+    }
+
+    /**
+     * @return zero-based ordinal of the schedule in its source
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    public @NotNull Schedule getSchedule() {
+        return schedule;
+    }
+
+    public boolean isFailed() {
+        return signature != null;
+    }
+
+    /**
+     * @return failure or null if schedule passed or its result has been restored from {@link ExplorationCache}
+     */
+    public @Nullable Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Returns short description of how the schedule failed: exception type and, for {@link AggregatedException},
+     * sorted cause types, e.g. {@code AggregatedException[javax.persistence.OptimisticLockException]}.
+     * Failures with the same signature are considered the same.
+     *
+     * @return failure signature or null if schedule passed
+     */
+    public @Nullable String getFailureSignature() {
+        return signature;
+    }
+
+    @NotNull Set<String> getReachedCheckpoints() {
+        return reachedCheckpoints;
+    }
+
+    static @NotNull String signatureOf(@NotNull Throwable failure) {
+        if (!(failure instanceof AggregatedException))
+            return failure.getClass().getName();
+
+        TreeSet<String> types = new TreeSet<>();
+        for (Map.Entry<String, Throwable> entry: ((AggregatedException) failure).getCauses().entrySet()) {
+            types.add(entry.getValue().getClass().getName());
+        }
+
+        return AggregatedException.class.getSimpleName() + types;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s", index, signature != null ? signature : "passed");
+    }
+}
@@ -0,0 +1,245 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Space of all sequential schedules of given workers. Each worker is defined by the checkpoints it passes
+ * in order, so it contributes one step per checkpoint plus the final step till its end. The space consists
+ * of all interleavings of these steps which preserve each worker's order.
+ *
+ * Schedules are enumerated in lexicographic order of workers (in order of definition), which allows to split
+ * the space into disjoint subspaces by prefixes, see {@link #prefixes(int)} and {@link #completions(List)}.
+ *
+ * <pre>
+ * ScheduleSpace space = new ScheduleSpace()
+ *     .withWorker("A", "com.github.concusim.sample.MyService#beforeCommit")
+ *     .withWorker("B", "com.github.concusim.sample.MyService#beforeCommit");
+ * </pre>
+ */
+public final class ScheduleSpace implements Iterable<Schedule> {
+    private final List<String> names = new ArrayList<>();
+    private final List<List<String>> checkpoints = new ArrayList<>();
+
+    /**
+     * Adds worker passing specified checkpoints.
+     *
+     * @param name worker name
+     * @param checkpoints full names of checkpoints in order they are passed by the worker
+     * @return this
+     */
+    public @NotNull ScheduleSpace withWorker(@NotNull String name, @NotNull String... checkpoints) {
+        for (String checkpoint: checkpoints) {
+            new ScheduleStep(name, checkpoint, false);
+        }
+
+        if (names.contains(name))
+            throw new IllegalArgumentException(String.format("Worker '%s' already exists.", name));
+
+        this.names.add(name);
+        this.checkpoints.add(Collections.unmodifiableList(Arrays.asList(checkpoints.clone())));
+        return this;
+    }
+
+    /**
+     * @return count of schedules in the space
+     * @throws ArithmeticException if count doesn't fit into long
+     */
+    public long size() {
+        return count(Collections.emptyList());
+    }
+
+    /**
+     * Returns count of schedules starting with specified prefix.
+     *
+     * @param prefix steps of the space
+     * @return count of completions
+     */
+    public long count(@NotNull List<ScheduleStep> prefix) {
+        int[] positions = positionsOf(prefix);
+
+        long ret = 1;
+        long total = 0;
+        for (int w = 0; w < positions.length; w++) {
+            for (int j = 1; j <= lengthOf(w) - positions[w]; j++) {
+                total++;
+                ret = Math.multiplyExact(ret, total) / j;
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public @NotNull Iterator<Schedule> iterator() {
+        return completions(Collections.emptyList());
+    }
+
+    /**
+     * Lazily enumerates all schedules starting with specified prefix.
+     *
+     * @param prefix steps of the space
+     * @return schedules in lexicographic order
+     */
+    public @NotNull Iterator<Schedule> completions(@NotNull List<ScheduleStep> prefix) {
+        return new Completions(prefix);
+    }
+
+    /**
+     * Splits the space by distinct prefixes of specified length. Schedules shorter than depth are returned as is.
+     * Completions of all prefixes are disjoint and cover the whole space.
+     *
+     * @param depth prefix length
+     * @return prefixes in lexicographic order
+     */
+    public @NotNull List<Schedule> prefixes(int depth) {
+        if (depth <= 0)
+            throw new IllegalArgumentException("depth must be positive");
+
+        List<Schedule> ret = new ArrayList<>();
+        collectPrefixes(new ArrayList<>(), new int[names.size()], depth, ret);
+        return ret;
+    }
+
+    /**
+     * @return checkpoints of each worker in order of definition
+     */
+    @NotNull Map<String, List<String>> getWorkers() {
+        Map<String, List<String>> ret = new LinkedHashMap<>();
+        for (int w = 0; w < names.size(); w++) {
+            ret.put(names.get(w), checkpoints.get(w));
+        }
+        return ret;
+    }
+
+    private void collectPrefixes(
+        @NotNull List<ScheduleStep> prefix, @NotNull int[] positions, int depth, @NotNull List<Schedule> ret)
+    {
+        if (prefix.size() == depth) {
+            ret.add(new Schedule(prefix));
+            return;
+        }
+
+        boolean extended = false;
+        for (int w = 0; w < positions.length; w++) {
+            if (positions[w] == lengthOf(w))
+                continue;
+
+            prefix.add(stepOf(w, positions[w]++));
+            collectPrefixes(prefix, positions, depth, ret);
+            positions[w]--;
+            prefix.remove(prefix.size() - 1);
+            extended = true;
+        }
+
+        if (!extended && !prefix.isEmpty()) {
+            ret.add(new Schedule(prefix));
+        }
+    }
+
+    private @NotNull int[] positionsOf(@NotNull List<ScheduleStep> prefix) {
+        int[] positions = new int[names.size()];
+
+        for (ScheduleStep step: prefix) {
+            int w = names.indexOf(step.getWorker());
+            if (w < 0 || positions[w] == lengthOf(w) || !stepOf(w, positions[w]).equals(step.withParallel(false)))
+                throw new IllegalArgumentException(String.format("Step '%s' doesn't follow the prefix.", step));
+
+            positions[w]++;
+        }
+
+        return positions;
+    }
+
+    private int lengthOf(int w) {
+        return checkpoints.get(w).size() + 1;
+    }
+
+    private @NotNull ScheduleStep stepOf(int w, int position) {
+        List<String> passed = checkpoints.get(w);
+        return new ScheduleStep(names.get(w), position < passed.size() ? passed.get(position) : null, false);
+    }
+
+    /**
+     * Enumerates worker choices of the steps after prefix like an odometer: the last choice which might be
+     * replaced by a greater worker is replaced, all subsequent choices are reset to the least available workers.
+     */
+    private final class Completions implements Iterator<Schedule> {
+        private final List<ScheduleStep> prefix;
+        private final int[] positions;
+        private final int[] remaining;
+        private final int[] choices;
+        private boolean hasNext;
+
+        Completions(@NotNull List<ScheduleStep> prefix) {
+            this.prefix = new ArrayList<>(prefix);
+            this.positions = positionsOf(prefix);
+            this.remaining = new int[positions.length];
+
+            int length = 0;
+            for (int w = 0; w < positions.length; w++) {
+                remaining[w] = lengthOf(w) - positions[w];
+                length += remaining[w];
+            }
+
+            this.choices = new int[length];
+            this.hasNext = length > 0 || !prefix.isEmpty();
+            fill(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public @NotNull Schedule next() {
+            if (!hasNext)
+                throw new NoSuchElementException();
+
+            List<ScheduleStep> steps = new ArrayList<>(prefix.size() + choices.length);
+            steps.addAll(prefix);
+
+            int[] next = positions.clone();
+            for (int w: choices) {
+                steps.add(stepOf(w, next[w]++));
+            }
+
+            advance();
+            return new Schedule(steps);
+        }
+
+        private void advance() {
+            for (int k = choices.length - 1; k >= 0; k--) {
+                remaining[choices[k]]++;
+                for (int w = choices[k] + 1; w < remaining.length; w++) {
+                    if (remaining[w] > 0) {
+                        choices[k] = w;
+                        remaining[w]--;
+                        fill(k + 1);
+                        return;
+                    }
+                }
+            }
+            hasNext = false;
+        }
+
+        private void fill(int from) {
+            for (int i = from; i < choices.length; i++) {
+                int w = 0;
+                while (remaining[w] == 0) {
+                    w++;
+                }
+                choices[i] = w;
+                remaining[w]--;
+            }
+        }
+    }
+}
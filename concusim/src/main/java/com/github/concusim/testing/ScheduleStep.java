@@ -0,0 +1,90 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Single step of {@link Schedule}: run named worker till checkpoint (full name) or till its end.
+ */
+public final class ScheduleStep {
+    static final String END = "end";
+    static final String PARALLEL = "parallel";
+
+    private final String worker;
+    private final String checkpoint;
+    private final boolean parallel;
+
+    public ScheduleStep(@NotNull String worker, @Nullable String checkpoint, boolean parallel) {
+        if (worker.isEmpty() || worker.chars().anyMatch(Character::isWhitespace))
+            throw new IllegalArgumentException(String.format("Invalid worker name '%s'.", worker));
+
+        if (checkpoint != null && (checkpoint.indexOf('#') <= 0 || checkpoint.chars().anyMatch(Character::isWhitespace)))
+            throw new IllegalArgumentException(String.format("Invalid checkpoint name '%s'.", checkpoint));
+
+        this.worker = worker;
+        this.checkpoint = checkpoint;
+        this.parallel = parallel;
+    }
+
+    public @NotNull String getWorker() {
+        return worker;
+    }
+
+    /**
+     * @return checkpoint full name (see {@link CheckpointUtils#getFullName}) or null if step runs till worker's end
+     */
+    public @Nullable String getCheckpoint() {
+        return checkpoint;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    @NotNull ScheduleStep withParallel(boolean parallel) {
+        return parallel == this.parallel ? this : new ScheduleStep(worker, checkpoint, parallel);
+    }
+
+    void applyTo(@NotNull ConcurrencySimulator simulator) {
+        ConcurrencySimulator.StepBuilder builder = simulator.run(worker);
+        if (parallel) {
+            builder.parallel();
+        }
+
+        if (checkpoint != null) {
+            builder.till(checkpoint);
+        } else {
+            builder.tillEnd();
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+
+        if (other == null || other.getClass() != getClass())
+            return false;
+
+        ScheduleStep step = (ScheduleStep) other;
+        return
+            worker.equals(step.worker) &&
+            (checkpoint != null ? checkpoint.equals(step.checkpoint) : step.checkpoint == null) &&
+            parallel == step.parallel;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = worker.hashCode();
+        hash = 31 * hash + (checkpoint != null ? checkpoint.hashCode() : 0);
+        return 31 * hash + (parallel ? 1 : 0);
+    }
+
+    /**
+     * @return step in schedule format: {@code <worker> <checkpoint|end> [parallel]}
+     */
+    @Override
+    public String toString() {
+        return worker + " " + (checkpoint != null ? checkpoint : END) + (parallel ? " " + PARALLEL : "");
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contention aggregated over all passes of some checkpoint segment, i.e. the way from one checkpoint to another.
+ * Segments which start at worker's start are denoted by {@link ContentionProfiler#START},
+ * segments which end at worker's end are denoted by {@link ContentionProfiler#END}.
+ */
+public final class SegmentContention {
+    private final String from;
+    private final String to;
+    private long passes;
+    private long blockedMillis;
+    private long blockedCount;
+    private long waitedMillis;
+    private long waitedCount;
+    private final Map<String, Integer> lockSamples = new HashMap<>();
+
+    SegmentContention(@NotNull String from, @NotNull String to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public @NotNull String getFrom() {
+        return from;
+    }
+
+    public @NotNull String getTo() {
+        return to;
+    }
+
+    public long getPasses() {
+        return passes;
+    }
+
+    public long getBlockedMillis() {
+        return blockedMillis;
+    }
+
+    public long getBlockedCount() {
+        return blockedCount;
+    }
+
+    public long getWaitedMillis() {
+        return waitedMillis;
+    }
+
+    public long getWaitedCount() {
+        return waitedCount;
+    }
+
+    /**
+     * Returns how many times a worker was caught blocked or waiting on each lock within this segment.
+     * Keys look like {@code <lock class> held by <owner thread>}.
+     *
+     * @return samples per lock
+     */
+    public @NotNull Map<String, Integer> getLockSamples() {
+        return Collections.unmodifiableMap(lockSamples);
+    }
+
+    void add(long blockedMillis, long blockedCount, long waitedMillis, long waitedCount, @NotNull Map<String, Integer> locks) {
+        this.passes++;
+        this.blockedMillis += blockedMillis;
+        this.blockedCount += blockedCount;
+        this.waitedMillis += waitedMillis;
+        this.waitedCount += waitedCount;
+        locks.forEach((lock, samples) -> lockSamples.merge(lock, samples, Integer::sum));
+    }
+
+    @NotNull SegmentContention copy() {
+        SegmentContention copy = new SegmentContention(from, to);
+        copy.passes = passes;
+        copy.blockedMillis = blockedMillis;
+        copy.blockedCount = blockedCount;
+        copy.waitedMillis = waitedMillis;
+        copy.waitedCount = waitedCount;
+        copy.lockSamples.putAll(lockSamples);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s -> %s: passes=%d, blocked=%dms/%d, waited=%dms/%d",
+            from, to, passes, blockedMillis, blockedCount, waitedMillis, waitedCount);
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Line based protocol between {@link ShardedExplorer} and {@link ShardWorker} processes.
+ *
+ * Coordinator sends the space (one line per worker: {@code <worker> [<checkpoint>...]}) and then prefixes
+ * in schedule format, each block is terminated by a blank line. Worker replies to each prefix with
+ * {@code checkpoint <name>} lines, {@code failure <index> <signature>} lines each followed by the failed
+ * schedule and a blank line, and the final {@code total <count>} line. Closing the input stops the worker.
+ */
+final class ShardProtocol {
+    private static final String CHECKPOINT = "checkpoint ";
+    private static final String FAILURE = "failure ";
+    private static final String TOTAL = "total ";
+
+    private ShardProtocol() {
+    }
+
+    static void writeSpace(@NotNull Writer out, @NotNull ScheduleSpace space) throws IOException {
+        for (Map.Entry<String, List<String>> worker: space.getWorkers().entrySet()) {
+            out.write(worker.getKey());
+            for (String checkpoint: worker.getValue()) {
+                out.write(" ");
+                out.write(checkpoint);
+            }
+            out.write("\n");
+        }
+        out.write("\n");
+    }
+
+    static @NotNull ScheduleSpace readSpace(@NotNull BufferedReader in) throws IOException {
+        List<String> lines = readBlock(in);
+        if (lines == null)
+            throw new EOFException("Space expected.");
+
+        ScheduleSpace space = new ScheduleSpace();
+        for (String line: lines) {
+            String[] tokens = line.trim().split("\\s+");
+            String[] checkpoints = new String[tokens.length - 1];
+            System.arraycopy(tokens, 1, checkpoints, 0, checkpoints.length);
+            space.withWorker(tokens[0], checkpoints);
+        }
+        return space;
+    }
+
+    static void writeSchedule(@NotNull Writer out, @NotNull Schedule schedule) throws IOException {
+        out.write(schedule.toString());
+        out.write("\n");
+    }
+
+    static @Nullable Schedule readSchedule(@NotNull BufferedReader in) throws IOException {
+        List<String> lines = readBlock(in);
+        return lines != null ? Schedule.parse(String.join("\n", lines)) : null;
+    }
+
+    static void writeReport(@NotNull Writer out, @NotNull BatchReport report) throws IOException {
+        for (String checkpoint: report.getReachedCheckpoints()) {
+            out.write(CHECKPOINT + checkpoint + "\n");
+        }
+        for (ScheduleResult failure: report.getFailures()) {
+            out.write(FAILURE + failure.getIndex() + " " + failure.getFailureSignature() + "\n");
+            writeSchedule(out, failure.getSchedule());
+        }
+        out.write(TOTAL + report.getTotal() + "\n");
+    }
+
+    /**
+     * Reads report of one prefix, indexes of failed schedules are shifted by offset.
+     */
+    static @NotNull BatchReport readReport(@NotNull BufferedReader in, long offset) throws IOException {
+        Set<String> checkpoints = new HashSet<>();
+        List<ScheduleResult> failures = new ArrayList<>();
+
+        while (true) {
+            String line = in.readLine();
+            if (line == null)
+                throw new EOFException("Report expected.");
+
+            if (line.startsWith(CHECKPOINT)) {
+                checkpoints.add(line.substring(CHECKPOINT.length()));
+            } else if (line.startsWith(FAILURE)) {
+                String[] tokens = line.substring(FAILURE.length()).split(" ", 2);
+                Schedule schedule = readSchedule(in);
+                if (tokens.length != 2 || schedule == null)
+                    throw new IOException(String.format("Malformed failure '%s'.", line));
+
+                failures.add(new ScheduleResult(offset + Long.parseLong(tokens[0]), schedule, tokens[1]));
+            } else if (line.startsWith(TOTAL)) {
+                return new BatchReport(Long.parseLong(line.substring(TOTAL.length())), failures, checkpoints);
+            } else {
+                throw new IOException(String.format("Unexpected line '%s'.", line));
+            }
+        }
+    }
+
+    private static @Nullable List<String> readBlock(@NotNull BufferedReader in) throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        String line;
+        while ((line = in.readLine()) != null && !line.trim().isEmpty()) {
+            lines.add(line);
+        }
+
+        return lines.isEmpty() && line == null ? null : lines;
+    }
+}
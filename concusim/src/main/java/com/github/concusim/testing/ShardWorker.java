@@ -0,0 +1,47 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Entry point of the worker process forked by {@link ShardedExplorer}. Reads the space and prefixes from stdin,
+ * runs all completions of each prefix and writes report to stdout, see {@link ShardProtocol}.
+ *
+ * Arguments: {@code <scenario class> <lanes> <step timeout millis>}. Scenario class must have public no-arg
+ * constructor.
+ */
+public final class ShardWorker {
+    private ShardWorker() {
+    }
+
+    public static void main(@NotNull String[] args) throws Exception {
+        if (args.length != 3)
+            throw new IllegalArgumentException("Usage: ShardWorker <scenario class> <lanes> <step timeout millis>");
+
+        // stdout is reserved for the protocol, everything printed by scenarios and logging goes to stderr,
+        // so nothing (including logging framework) must touch System.out before this point
+        PrintStream protocol = System.out;
+        System.setOut(System.err);
+
+        Class<? extends IScenario> scenario = Class.forName(args[0]).asSubclass(IScenario.class);
+        BatchRunner runner = new BatchRunner(() -> scenario.getConstructor().newInstance())
+            .withParallelism(Integer.parseInt(args[1]))
+            .withStepTimeoutMillis(Long.parseLong(args[2]));
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        Writer out = new BufferedWriter(new OutputStreamWriter(protocol, StandardCharsets.UTF_8));
+
+        ScheduleSpace space = ShardProtocol.readSpace(in);
+        for (Schedule prefix; (prefix = ShardProtocol.readSchedule(in)) != null; ) {
+            ShardProtocol.writeReport(out, runner.run(space.completions(prefix.getSteps())));
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Explores schedule space in several forked JVMs (shards), so scenarios with global static state don't
+ * interfere and each shard has its own heap. The space is split into prefixes which are put into shared queue,
+ * each shard pulls the next prefix as soon as it finished the previous one and runs all its completions.
+ * Shard processes use the same class path as the current JVM and talk to it via stdin/stdout,
+ * their stderr is inherited. Prefix of a crashed shard is put back to the queue, shards keep polling
+ * the queue until every prefix has been explored, so the remaining shards pick it up. A shard is considered
+ * crashed if it exited, replied with malformed report or didn't reply within the time its schedules might take
+ * at most by step timeout.
+ *
+ * <pre>
+ * BatchReport report = new ShardedExplorer(MyScenario.class)
+ *     .withShards(8)
+ *     .run(space);
+ * </pre>
+ */
+public final class ShardedExplorer {
+    private static final Logger log = LoggerFactory.getLogger(ShardedExplorer.class);
+    private static final int PREFIXES_PER_SHARD = 4;
+    private static final long POLL_INTERVAL = 100;
+
+    private static final class Prefix {
+        final Schedule schedule;
+        final long offset;
+
+        Prefix(@NotNull Schedule schedule, long offset) {
+            this.schedule = schedule;
+            this.offset = offset;
+        }
+    }
+
+    private final Class<? extends IScenario> scenario;
+    private int shards;
+    private int lanes;
+    private int prefixDepth;
+    private long stepTimeout;
+    private List<String> jvmArgs = Collections.emptyList();
+
+    /**
+     * Constructs new ShardedExplorer with shard per available processor, one lane per shard
+     * and default step timeout (5sec).
+     *
+     * @param scenario scenario class with public no-arg constructor
+     */
+    public ShardedExplorer(@NotNull Class<? extends IScenario> scenario) {
+        this.scenario = scenario;
+        this.shards = Runtime.getRuntime().availableProcessors();
+        this.lanes = 1;
+        this.stepTimeout = 5000;
+    }
+
+    /**
+     * Sets count of forked JVMs.
+     *
+     * @param shards count of shards
+     * @return this
+     */
+    public @NotNull ShardedExplorer withShards(int shards) {
+        if (shards <= 0)
+            throw new IllegalArgumentException("shards must be positive");
+
+        this.shards = shards;
+        return this;
+    }
+
+    /**
+     * Sets count of schedules run concurrently within each shard, see {@link BatchRunner#withParallelism(int)}.
+     *
+     * @param lanes count of lanes per shard
+     * @return this
+     */
+    public @NotNull ShardedExplorer withLanesPerShard(int lanes) {
+        if (lanes <= 0)
+            throw new IllegalArgumentException("lanes must be positive");
+
+        this.lanes = lanes;
+        return this;
+    }
+
+    /**
+     * Sets prefix length. By default the shortest length giving at least 4 prefixes per shard is chosen.
+     *
+     * @param depth prefix length
+     * @return this
+     */
+    public @NotNull ShardedExplorer withPrefixDepth(int depth) {
+        if (depth <= 0)
+            throw new IllegalArgumentException("depth must be positive");
+
+        this.prefixDepth = depth;
+        return this;
+    }
+
+    /**
+     * Sets step timeout of simulators in milliseconds.
+     *
+     * @param milliseconds step timeout in milliseconds
+     * @return this
+     */
+    public @NotNull ShardedExplorer withStepTimeoutMillis(long milliseconds) {
+        if (milliseconds < 0)
+            throw new IllegalArgumentException("milliseconds must be non-negative");
+
+        this.stepTimeout = milliseconds;
+        return this;
+    }
+
+    /**
+     * Sets extra arguments of forked JVMs, e.g. heap size.
+     *
+     * @param args JVM arguments
+     * @return this
+     */
+    public @NotNull ShardedExplorer withJvmArgs(@NotNull String... args) {
+        this.jvmArgs = Arrays.asList(args.clone());
+        return this;
+    }
+
+    /**
+     * Runs all schedules of the space in forked JVMs.
+     *
+     * @param space schedule space
+     * @return merged report, schedule indexes are ordinals in {@link ScheduleSpace#iterator()} order
+     * @throws IllegalStateException if all shards crashed before the space has been explored
+     * @throws InterruptedException if current thread has been interrupted
+     */
+    public @NotNull BatchReport run(@NotNull ScheduleSpace space) throws InterruptedException {
+        BlockingQueue<Prefix> queue = new LinkedBlockingQueue<>();
+        long offset = 0;
+        for (Schedule prefix: split(space)) {
+            queue.add(new Prefix(prefix, offset));
+            offset += space.count(prefix.getSteps());
+        }
+
+        log.info("Exploring {} schedules by {} prefixes in {} shards", offset, queue.size(), shards);
+
+        AtomicInteger outstanding = new AtomicInteger(queue.size());
+
+        AtomicInteger shardNo = new AtomicInteger();
+        ExecutorService coordinators = Executors.newFixedThreadPool(shards, r -> {
+            Thread t = new Thread(r, "concusim-shard-" + shardNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            AtomicLong total = new AtomicLong();
+            List<ScheduleResult> failures = Collections.synchronizedList(new ArrayList<>());
+            Set<String> reachedCheckpoints = ConcurrentHashMap.newKeySet();
+
+            List<Future<?>> futures = new ArrayList<>(shards);
+            for (int i = 0; i < shards; i++) {
+                futures.add(coordinators.submit(() -> {
+                    runShard(space, queue, outstanding, report -> {
+                        total.addAndGet(report.getTotal());
+                        failures.addAll(report.getFailures());
+                        reachedCheckpoints.addAll(report.getReachedCheckpoints());
+                    });
+                    return null;
+                }));
+            }
+
+            for (Future<?> future: futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException)
+                        throw (RuntimeException) e.getCause();
+
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+
+            if (outstanding.get() > 0)
+                throw new IllegalStateException(
+                    String.format("All shards crashed, %d prefixes left.", outstanding.get()));
+
+            BatchReport report = new BatchReport(total.get(), failures, reachedCheckpoints);
+            log.info("{}", report);
+            return report;
+        } finally {
+            coordinators.shutdownNow();
+        }
+    }
+
+    private @NotNull List<Schedule> split(@NotNull ScheduleSpace space) {
+        if (prefixDepth > 0)
+            return space.prefixes(prefixDepth);
+
+        List<Schedule> prefixes = space.prefixes(1);
+        for (int depth = 2; prefixes.size() < PREFIXES_PER_SHARD * shards; depth++) {
+            List<Schedule> deeper = space.prefixes(depth);
+            if (deeper.size() == prefixes.size())
+                break;
+
+            prefixes = deeper;
+        }
+        return prefixes;
+    }
+
+    private void runShard(
+        @NotNull ScheduleSpace space, @NotNull BlockingQueue<Prefix> queue,
+        @NotNull AtomicInteger outstanding, @NotNull Consumer<BatchReport> merger)
+        throws IOException, InterruptedException
+    {
+        Process process = new ProcessBuilder(command())
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+
+        // reports are read by separate thread, so silent shard doesn't block the coordinator forever
+        String name = Thread.currentThread().getName();
+        ExecutorService reader = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, name + "-reader");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Prefix prefix = null;
+        try (
+            Writer out = new BufferedWriter(
+                new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            BufferedReader in = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)))
+        {
+            ShardProtocol.writeSpace(out, space);
+            while (outstanding.get() > 0) {
+                prefix = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (prefix == null)
+                    continue;
+
+                ShardProtocol.writeSchedule(out, prefix.schedule);
+                out.flush();
+
+                long offset = prefix.offset;
+                Future<BatchReport> report = reader.submit(() -> ShardProtocol.readReport(in, offset));
+                merger.accept(awaitReport(report, timeoutOf(space, prefix.schedule), process));
+                prefix = null;
+                outstanding.decrementAndGet();
+            }
+        } catch (IOException | RuntimeException | TimeoutException e) {
+            if (prefix != null) {
+                queue.add(prefix);
+            }
+            log.warn("{} => CRASHED", name, e);
+            process.destroyForcibly();
+            return;
+        } finally {
+            reader.shutdownNow();
+        }
+
+        if (!process.waitFor(stepTimeout, TimeUnit.MILLISECONDS)) {
+            log.warn("{} => EXIT TIMED-OUT", name);
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * Awaits report of the prefix. On timeout or interrupt the shard is destroyed, which releases the reader blocked
+     * on its output (otherwise closing of the output would block as well).
+     */
+    private static @NotNull BatchReport awaitReport(
+        @NotNull Future<BatchReport> report, long timeout, @NotNull Process process)
+        throws IOException, InterruptedException, TimeoutException
+    {
+        try {
+            return report.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            process.destroyForcibly();
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return upper bound of time taken by all completions of the prefix: each step and final stop of each schedule
+     * are bounded by step timeout, plus one step timeout for shard start
+     */
+    private long timeoutOf(@NotNull ScheduleSpace space, @NotNull Schedule prefix) {
+        long steps = 1;
+        for (List<String> checkpoints: space.getWorkers().values()) {
+            steps += checkpoints.size() + 1;
+        }
+
+        long rounds = (space.count(prefix.getSteps()) + lanes - 1) / lanes;
+        try {
+            return Math.addExact(Math.multiplyExact(Math.multiplyExact(stepTimeout, steps), rounds), stepTimeout);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private @NotNull List<String> command() {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        command.add(scenario.getName());
+        command.add(Integer.toString(lanes));
+        command.add(Long.toString(stepTimeout));
+        return command;
+    }
+}
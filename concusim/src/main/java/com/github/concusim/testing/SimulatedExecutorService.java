@@ -0,0 +1,275 @@
+package com.github.concusim.testing;
+
+import com.github.concusim.Concurrency;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drop-in {@link ScheduledExecutorService} which is driven by {@link ConcurrencySimulator}.
+ *
+ * Each submitted task becomes a concurrent worker of the simulator named {@code <name>-<seq>} and does nothing
+ * until the simulator runs it. Submission itself is a checkpoint ({@link #CHECKPOINT_SUBMIT}) so it is possible
+ * to pause the submitting worker just after the task has been handed off. Delays of scheduled tasks are ignored:
+ * a task fires when the simulator decides. Periodic tasks reach {@link #CHECKPOINT_NEXT_PERIOD} after each
+ * execution, so every {@code till(SimulatedExecutorService.class, CHECKPOINT_NEXT_PERIOD)} step runs one period.
+ *
+ * Tasks might be obtained either from returned futures (all of them are runnables) or via {@link #getTask(int)}
+ * when submission is performed by the code under test. Plain runnables passed to {@link #execute} are registered
+ * wrapped into a future, so shutdown and termination account them as well.
+ */
+public final class SimulatedExecutorService extends AbstractExecutorService implements ScheduledExecutorService {
+    public static final String CHECKPOINT_SUBMIT = "submit";
+    public static final String CHECKPOINT_NEXT_PERIOD = "nextPeriod";
+
+    private final class ScheduledTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+        private final long delay;
+        private final long period;
+        private final long seq;
+
+        ScheduledTask(@NotNull Callable<V> callable, long delay, long seq) {
+            super(callable);
+            this.delay = delay;
+            this.period = 0;
+            this.seq = seq;
+        }
+
+        ScheduledTask(@NotNull Runnable runnable, long delay, long period, long seq) {
+            super(runnable, null);
+            this.delay = delay;
+            this.period = period;
+            this.seq = seq;
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        @Override
+        public long getDelay(@NotNull TimeUnit unit) {
+            return unit.convert(delay, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(@NotNull Delayed other) {
+            if (other == this)
+                return 0;
+
+            if (other instanceof ScheduledTask) {
+                ScheduledTask<?> task = (ScheduledTask<?>) other;
+                int cmp = Long.compare(delay, task.delay);
+                return cmp != 0 ? cmp : Long.compare(seq, task.seq);
+            }
+
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public void run() {
+            if (!isPeriodic()) {
+                super.run();
+                return;
+            }
+
+            while (!isShutdown() && runAndReset()) {
+                Concurrency.checkpoint(SimulatedExecutorService.class, CHECKPOINT_NEXT_PERIOD);
+            }
+        }
+    }
+
+    /**
+     * Plain runnable passed to {@link #execute}: tracked like other tasks, failure is rethrown so the simulator
+     * reports it (there is no future to observe it).
+     */
+    private static final class ExecutedTask extends FutureTask<Void> {
+        private volatile Throwable failure;
+
+        ExecutedTask(@NotNull Runnable command) {
+            super(command, null);
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            failure = t;
+            super.setException(t);
+        }
+
+        @Override
+        public void run() {
+            super.run();
+
+            Throwable t = failure;
+            if (t instanceof RuntimeException)
+                throw (RuntimeException) t;
+            if (t instanceof Error)
+                throw (Error) t;
+            if (t != null)
+                throw new RuntimeException(t);
+        }
+    }
+
+    private final ConcurrencySimulator simulator;
+    private final String name;
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final AtomicLong seq = new AtomicLong();
+    private volatile boolean shutdown;
+
+    /**
+     * Constructs new executor bound to specified simulator.
+     *
+     * @param simulator simulator which will run submitted tasks
+     * @param name executor name, used as prefix of task names
+     */
+    public SimulatedExecutorService(@NotNull ConcurrencySimulator simulator, @NotNull String name) {
+        this.simulator = simulator;
+        this.name = name;
+    }
+
+    /**
+     * Returns task submitted with specified index (in order of submission).
+     *
+     * @param index task index
+     * @return task as it is registered in the simulator
+     */
+    public @NotNull Runnable getTask(int index) {
+        synchronized (tasks) {
+            return tasks.get(index);
+        }
+    }
+
+    /**
+     * @return count of tasks submitted so far
+     */
+    public int getTaskCount() {
+        synchronized (tasks) {
+            return tasks.size();
+        }
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command) {
+        execute(command instanceof FutureTask ? command : new ExecutedTask(command), seq.incrementAndGet());
+    }
+
+    private void execute(@NotNull Runnable task, long number) {
+        if (shutdown)
+            throw new RejectedExecutionException(String.format("Executor '%s' has been shut down.", name));
+
+        synchronized (tasks) {
+            tasks.add(task);
+        }
+        Concurrency.release(task);
+        simulator.withConcurrentWorker(task, name + "-" + number);
+
+        Concurrency.checkpoint(SimulatedExecutorService.class, CHECKPOINT_SUBMIT);
+    }
+
+    @Override
+    public @NotNull ScheduledFuture<?> schedule(@NotNull Runnable command, long delay, @NotNull TimeUnit unit) {
+        return schedule(Executors.callable(command), delay, unit);
+    }
+
+    @Override
+    public @NotNull <V> ScheduledFuture<V> schedule(@NotNull Callable<V> callable, long delay, @NotNull TimeUnit unit) {
+        long number = seq.incrementAndGet();
+        ScheduledTask<V> task = new ScheduledTask<>(callable, unit.toNanos(delay), number);
+        execute(task, number);
+        return task;
+    }
+
+    @Override
+    public @NotNull ScheduledFuture<?> scheduleAtFixedRate(
+        @NotNull Runnable command, long initialDelay, long period, @NotNull TimeUnit unit)
+    {
+        if (period <= 0)
+            throw new IllegalArgumentException("period must be positive");
+
+        long number = seq.incrementAndGet();
+        ScheduledTask<Void> task = new ScheduledTask<>(command, unit.toNanos(initialDelay), unit.toNanos(period), number);
+        execute(task, number);
+        return task;
+    }
+
+    @Override
+    public @NotNull ScheduledFuture<?> scheduleWithFixedDelay(
+        @NotNull Runnable command, long initialDelay, long delay, @NotNull TimeUnit unit)
+    {
+        if (delay <= 0)
+            throw new IllegalArgumentException("delay must be positive");
+
+        long number = seq.incrementAndGet();
+        ScheduledTask<Void> task = new ScheduledTask<>(command, unit.toNanos(initialDelay), -unit.toNanos(delay), number);
+        execute(task, number);
+        return task;
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public @NotNull List<Runnable> shutdownNow() {
+        shutdown = true;
+
+        List<Runnable> pending = new ArrayList<>();
+        synchronized (tasks) {
+            for (Runnable task: tasks) {
+                if (task instanceof FutureTask && !((FutureTask<?>) task).isDone()) {
+                    ((FutureTask<?>) task).cancel(false);
+                    pending.add(task);
+                }
+            }
+        }
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        if (!shutdown)
+            return false;
+
+        synchronized (tasks) {
+            for (Runnable task: tasks) {
+                if (task instanceof FutureTask && !((FutureTask<?>) task).isDone())
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            if (System.nanoTime() - deadline >= 0)
+                return false;
+
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
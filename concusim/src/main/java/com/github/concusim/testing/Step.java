@@ -11,6 +11,10 @@ final class Step {
     private final boolean concurrent;
     private volatile boolean checkpointReached;
     private volatile boolean workerFinished;
+    private volatile StepMetrics metrics;
+    private long wallBudget = Long.MAX_VALUE;
+    private long cpuBudget = Long.MAX_VALUE;
+    private long allocBudget = Long.MAX_VALUE;
 
     Step(@NotNull WorkerThread thread, @Nullable String checkpoint, boolean concurrent) {
         this.thread = thread;
@@ -22,6 +26,10 @@ final class Step {
         thread.doStep(this, latch);
     }
 
+    @NotNull WorkerThread getThread() {
+        return thread;
+    }
+
     boolean hasCheckpoint() {
         return checkpoint != null;
     }
@@ -42,12 +50,47 @@ final class Step {
         workerFinished = true;
     }
 
-    void validate() throws CheckpointException {
+    void measured(@NotNull StepMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Nullable StepMetrics getMetrics() {
+        return metrics;
+    }
+
+    void setWallBudget(long nanos) {
+        wallBudget = nanos;
+    }
+
+    void setCpuBudget(long nanos) {
+        cpuBudget = nanos;
+    }
+
+    void setAllocBudget(long bytes) {
+        allocBudget = bytes;
+    }
+
+    void validate() throws CheckpointException, BudgetException {
         if (checkpoint != null && !checkpointReached)
             throw new CheckpointException(
                 String.format("Worker '%s' didn't reach checkpoint '%s' as expected.", thread, checkpoint));
 
         if (checkpoint == null && !workerFinished)
             throw new CheckpointException(String.format("Worker '%s' didn't finished as expected.", thread));
+
+        if (metrics == null)
+            return;
+
+        if (metrics.getWallNanos() > wallBudget)
+            throw new BudgetException(
+                String.format("Worker '%s' exceeded wall time budget %dns: %s", thread, wallBudget, metrics));
+
+        if (metrics.getCpuNanos() > cpuBudget)
+            throw new BudgetException(
+                String.format("Worker '%s' exceeded CPU time budget %dns: %s", thread, cpuBudget, metrics));
+
+        if (metrics.getAllocatedBytes() > allocBudget)
+            throw new BudgetException(
+                String.format("Worker '%s' exceeded allocation budget %dB: %s", thread, allocBudget, metrics));
     }
 }
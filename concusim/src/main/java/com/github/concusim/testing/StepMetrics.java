@@ -0,0 +1,58 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Resources consumed by worker during one step.
+ *
+ * CPU time and allocated bytes are -1 if JVM doesn't support corresponding measurement.
+ */
+public final class StepMetrics {
+    private final String worker;
+    private final String checkpoint;
+    private final long wallNanos;
+    private final long cpuNanos;
+    private final long allocatedBytes;
+
+    StepMetrics(
+        @NotNull String worker, @Nullable String checkpoint, long wallNanos, long cpuNanos, long allocatedBytes)
+    {
+        this.worker = worker;
+        this.checkpoint = checkpoint;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public @NotNull String getWorker() {
+        return worker;
+    }
+
+    /**
+     * @return checkpoint the step ran till or null if step ran till worker's end
+     */
+    public @Nullable String getCheckpoint() {
+        return checkpoint;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s till %s: wall=%dus, cpu=%dus, alloc=%dB",
+            worker, checkpoint != null ? checkpoint : "end",
+            wallNanos / 1000, cpuNanos >= 0 ? cpuNanos / 1000 : -1, allocatedBytes);
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures wall time, CPU time and allocated bytes of current thread since last {@link #reset()}.
+ */
+final class ThreadMeter {
+    private static final ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+    private static final boolean cpuSupported = mxBean.isCurrentThreadCpuTimeSupported();
+    private static final boolean allocSupported =
+        mxBean instanceof com.sun.management.ThreadMXBean &&
+        ((com.sun.management.ThreadMXBean) mxBean).isThreadAllocatedMemorySupported();
+
+    private long wall;
+    private long cpu;
+    private long alloc;
+
+    void reset() {
+        wall = System.nanoTime();
+        cpu = currentCpuTime();
+        alloc = currentAllocatedBytes();
+    }
+
+    @NotNull StepMetrics measure(@NotNull String worker, @Nullable String checkpoint) {
+        long cpuNow = currentCpuTime();
+        long allocNow = currentAllocatedBytes();
+
+        return new StepMetrics(
+            worker, checkpoint,
+            System.nanoTime() - wall,
+            cpuNow >= 0 && cpu >= 0 ? cpuNow - cpu : -1,
+            allocNow >= 0 && alloc >= 0 ? allocNow - alloc : -1);
+    }
+
+    private static long currentCpuTime() {
+        return cpuSupported ? mxBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long currentAllocatedBytes() {
+        if (!allocSupported)
+            return -1;
+
+        return ((com.sun.management.ThreadMXBean) mxBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Growable vector clock indexed by detector's thread id. Missing entries are zero.
+ */
+final class VectorClock {
+    private int[] clocks;
+
+    VectorClock(int size) {
+        clocks = new int[Math.max(size, 4)];
+    }
+
+    int get(int tid) {
+        return tid < clocks.length ? clocks[tid] : 0;
+    }
+
+    void set(int tid, int clock) {
+        ensureCapacity(tid);
+        clocks[tid] = clock;
+    }
+
+    void increment(int tid) {
+        ensureCapacity(tid);
+        clocks[tid]++;
+    }
+
+    void join(@NotNull VectorClock other) {
+        ensureCapacity(other.clocks.length - 1);
+        for (int i = 0; i < other.clocks.length; i++) {
+            if (clocks[i] < other.clocks[i]) {
+                clocks[i] = other.clocks[i];
+            }
+        }
+    }
+
+    /**
+     * @return true if every entry of this clock is less than or equal to corresponding entry of other clock
+     */
+    boolean isBefore(@NotNull VectorClock other) {
+        for (int i = 0; i < clocks.length; i++) {
+            if (clocks[i] > other.get(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return id of the first thread whose entry is greater than corresponding entry of other clock or -1
+     */
+    int firstNotBefore(@NotNull VectorClock other) {
+        for (int i = 0; i < clocks.length; i++) {
+            if (clocks[i] > other.get(i))
+                return i;
+        }
+        return -1;
+    }
+
+    @NotNull VectorClock copy() {
+        VectorClock ret = new VectorClock(0);
+        ret.clocks = Arrays.copyOf(clocks, clocks.length);
+        return ret;
+    }
+
+    private void ensureCapacity(int tid) {
+        if (tid >= clocks.length) {
+            clocks = Arrays.copyOf(clocks, Math.max(tid + 1, clocks.length * 2));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(clocks);
+    }
+}
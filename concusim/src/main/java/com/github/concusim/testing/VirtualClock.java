@@ -0,0 +1,62 @@
+package com.github.concusim.testing;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Simulated clock shared by all workers of one simulator.
+ *
+ * Time stands still while at least one worker is running and jumps to the nearest wake-up
+ * as soon as every running worker is sleeping.
+ */
+final class VirtualClock {
+    private final TreeMap<Long, Integer> sleepers = new TreeMap<>();
+    private long now = System.nanoTime();
+    private int running;
+
+    synchronized long currentTimeNanos() {
+        return now;
+    }
+
+    synchronized void activate(int count) {
+        running += count;
+    }
+
+    synchronized void deactivate() {
+        running--;
+        advanceIfIdle();
+    }
+
+    synchronized void sleep(long nanos) throws InterruptedException {
+        if (nanos <= 0)
+            return;
+
+        long deadline = nanos < Long.MAX_VALUE - now ? now + nanos : Long.MAX_VALUE;
+
+        sleepers.merge(deadline, 1, Integer::sum);
+        running--;
+        advanceIfIdle();
+
+        try {
+            while (now < deadline) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            if (now < deadline) {
+                sleepers.computeIfPresent(deadline, (key, count) -> count > 1 ? count - 1 : null);
+                running++;
+            }
+            throw e;
+        }
+    }
+
+    private void advanceIfIdle() {
+        if (running > 0 || sleepers.isEmpty())
+            return;
+
+        Map.Entry<Long, Integer> next = sleepers.pollFirstEntry();
+        now = next.getKey();
+        running += next.getValue();
+        notifyAll();
+    }
+}
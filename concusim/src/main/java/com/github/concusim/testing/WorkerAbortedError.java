@@ -0,0 +1,14 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Thrown into worker's thread at its next checkpoint or sleep after the simulator has been stopped.
+ * It's an Error so that worker's code which catches exceptions doesn't swallow it and the worker unwinds
+ * through all its finally blocks.
+ */
+final class WorkerAbortedError extends Error {
+    WorkerAbortedError(@NotNull String msg) {
+        super(msg);
+    }
+}
@@ -7,6 +7,8 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeoutException;
 
@@ -14,15 +16,31 @@ final class WorkerThread extends Thread implements ICheckpointInterceptor {
     private static final Logger log = LoggerFactory.getLogger(WorkerThread.class);
 
     private final Trigger trigger = new Trigger();
+    private final ThreadMeter meter = new ThreadMeter();
     private final NamedWorker worker;
     private final long timeout;
+    private final VirtualClock clock;
+    private final Set<String> reachedCheckpoints;
+    private final Queue<WorkerThread> failures;
     private volatile Step step;
     private volatile CountDownLatch latch;
     private volatile Throwable cause;
-
-    WorkerThread(@NotNull NamedWorker worker, long timeout) {
+    private volatile ContentionTracker tracker;
+    private volatile RaceDetector detector;
+    private volatile boolean aborted;
+    private int raceId;
+
+    WorkerThread(
+        @NotNull NamedWorker worker, long timeout,
+        @NotNull VirtualClock clock, @NotNull Set<String> reachedCheckpoints, @NotNull Queue<WorkerThread> failures)
+    {
         this.worker = worker;
         this.timeout = timeout;
+        this.clock = clock;
+        this.reachedCheckpoints = reachedCheckpoints;
+        this.failures = failures;
+        setName(worker.getName());
+        setDaemon(true);
     }
 
     @Override
@@ -33,17 +51,27 @@ final class WorkerThread extends Thread implements ICheckpointInterceptor {
         try {
             await();
 
+            // pairs with release in SimulatedExecutorService.execute
+            onAcquire(worker.getRunnable());
             worker.run();
 
             log.info("{} => finished", worker);
         } catch (InterruptedException e) {
             log.info("{} => interrupted", worker);
+        } catch (WorkerAbortedError e) {
+            log.info("{} => aborted", worker);
         } catch (Throwable t) {
             cause = t;
+            failures.add(this);
             log.error("{} => threw '{}'", worker, t.getMessage(), t);
         } finally {
             if (step != null) {
+                step.measured(meter.measure(worker.getName(), null));
+                if (tracker != null) {
+                    tracker.finish();
+                }
                 step.workerFinished();
+                clock.deactivate();
             }
             Concurrency.setInterceptor(null);
             if (latch != null)
@@ -55,23 +83,87 @@ final class WorkerThread extends Thread implements ICheckpointInterceptor {
     public void onCheckpoint(@NotNull String name) {
         log.info("{} => @{}", worker, name);
 
+        checkAborted();
         if (isInterrupted())
             throw new RuntimeException("Thread has been interrupted.");
 
+        reachedCheckpoints.add(name);
+
+        if (tracker != null) {
+            tracker.checkpoint(name);
+        }
+
         if (!step.hasCheckpoint() || !name.equals(step.getCheckpoint()))
             return;
 
+        step.measured(meter.measure(worker.getName(), name));
         step.checkpointReached();
         step = null;
+        clock.deactivate();
 
         latch.countDown();
         try {
             await();
         } catch (InterruptedException | TimeoutException e) {
+            checkAborted();
             throw new RuntimeException(e);
         }
     }
 
+    @Override
+    public long currentTimeNanos() {
+        return clock.currentTimeNanos();
+    }
+
+    @Override
+    public void onSleep(long nanos) throws InterruptedException {
+        checkAborted();
+        try {
+            if (tracker == null) {
+                clock.sleep(nanos);
+                return;
+            }
+
+            long waited = tracker.sleepStarted();
+            try {
+                clock.sleep(nanos);
+            } finally {
+                tracker.sleepFinished(waited);
+            }
+        } catch (InterruptedException e) {
+            checkAborted();
+            throw e;
+        }
+    }
+
+    @Override
+    public void onRead(@NotNull Object target, @NotNull String field) {
+        if (detector != null) {
+            detector.read(raceId, target, field);
+        }
+    }
+
+    @Override
+    public void onWrite(@NotNull Object target, @NotNull String field) {
+        if (detector != null) {
+            detector.write(raceId, target, field);
+        }
+    }
+
+    @Override
+    public void onAcquire(@NotNull Object lock) {
+        if (detector != null) {
+            detector.acquire(raceId, lock);
+        }
+    }
+
+    @Override
+    public void onRelease(@NotNull Object lock) {
+        if (detector != null) {
+            detector.release(raceId, lock);
+        }
+    }
+
     @Override
     public String toString() {
         return worker.getName();
@@ -91,6 +183,34 @@ final class WorkerThread extends Thread implements ICheckpointInterceptor {
         fire();
     }
 
+    /**
+     * Forces the worker to unwind: parked or sleeping worker is woken up and WorkerAbortedError is thrown
+     * from its current (or next) checkpoint or sleep.
+     */
+    void abort() {
+        aborted = true;
+        interrupt();
+    }
+
+    void trackContention(@NotNull ContentionProfiler profiler) {
+        tracker = new ContentionTracker(profiler, getId());
+    }
+
+    void detectRaces(@NotNull RaceDetector detector) {
+        this.raceId = detector.register(worker.getName());
+        this.detector = detector;
+    }
+
+    int getRaceId() {
+        return raceId;
+    }
+
+    void sampleContention() {
+        if (tracker != null) {
+            tracker.sample();
+        }
+    }
+
     @Nullable Throwable getCause() {
         return cause;
     }
@@ -108,6 +228,15 @@ final class WorkerThread extends Thread implements ICheckpointInterceptor {
             throw new TimeoutException();
 
         log.info("{} => resumed", worker);
+        meter.reset();
+        if (tracker != null) {
+            tracker.resume();
+        }
+    }
+
+    private void checkAborted() {
+        if (aborted)
+            throw new WorkerAbortedError(String.format("Worker '%s' has been aborted.", worker));
     }
 
     private void fire() {
@@ -0,0 +1,102 @@
+package com.github.concusim.jdbc;
+
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CheckpointDataSourceTest {
+    private final List<String> calls = new ArrayList<>();
+
+    @Test
+    public void checkpointDataSource_should_wrap_connections_with_identity_equality() throws Exception {
+        CheckpointDataSource dataSource = new CheckpointDataSource(stub(DataSource.class));
+
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        assertThat(first.equals(first), is(true));
+        assertThat(first.equals(second), is(false));
+        assertThat(first.hashCode(), is(System.identityHashCode(first)));
+
+        Set<Connection> connections = new HashSet<>();
+        connections.add(first);
+        assertThat(connections.contains(first), is(true));
+        assertThat(connections.remove(first), is(true));
+    }
+
+    @Test
+    public void checkpointDataSource_should_wrap_statements_with_identity_equality() throws Exception {
+        Connection connection = new CheckpointDataSource(stub(DataSource.class)).getConnection();
+
+        Statement statement = connection.prepareStatement("update MyEntity set value=? where id=?");
+
+        assertThat(statement.equals(statement), is(true));
+        assertThat(statement.hashCode(), is(System.identityHashCode(statement)));
+        assertThat(statement.getConnection(), is(sameInstance(connection)));
+        assertThat(statement.toString(), is(not("")));
+    }
+
+    @Test
+    public void checkpointDataSource_should_record_statement_stats_by_fingerprint() throws Exception {
+        CheckpointDataSource dataSource = new CheckpointDataSource(stub(DataSource.class)).withFingerprints(true);
+
+        Connection connection = dataSource.getConnection();
+        connection.createStatement().executeUpdate("update MyEntity set value='a' where id=1");
+        connection.createStatement().executeUpdate("update MyEntity set value='b' where id=2");
+        PreparedStatement statement = connection.prepareStatement("select * from MyEntity where id=?");
+        statement.executeQuery();
+        connection.commit();
+
+        List<StatementStats> stats = dataSource.getStatementStats();
+        assertThat(stats.size(), is(2));
+
+        StatementStats update = stats.get(0).getFingerprint().startsWith("update") ? stats.get(0) : stats.get(1);
+        assertThat(update.getFingerprint(), is("update myentity set value=? where id=?"));
+        assertThat(update.getCount(), is(2L));
+        assertThat(update.getFailures(), is(0L));
+        assertThat(calls.contains("commit"), is(true));
+
+        dataSource.resetStatementStats();
+        assertThat(dataSource.getStatementStats().isEmpty(), is(true));
+    }
+
+    /**
+     * @return stub which records called methods and returns stubs for JDBC interfaces and defaults for the rest
+     */
+    private <T> T stub(Class<T> iface) {
+        return iface.cast(Proxy.newProxyInstance(
+            CheckpointDataSourceTest.class.getClassLoader(),
+            new Class<?>[] {iface},
+            (proxy, method, args) -> {
+                calls.add(method.getName());
+
+                Class<?> type = method.getReturnType();
+                if (method.getName().equals("equals"))
+                    return proxy == args[0];
+                if (method.getName().equals("hashCode"))
+                    return System.identityHashCode(proxy);
+                if (method.getName().equals("toString"))
+                    return iface.getSimpleName();
+                if (type.isInterface() && type.getName().startsWith("java.sql."))
+                    return stub(type);
+                if (type == int.class)
+                    return 1;
+                if (type == boolean.class)
+                    return false;
+                return null;
+            }));
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.concusim.jdbc;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SqlFingerprintTest {
+
+    @Test
+    public void normalize_should_replace_literals_and_collapse_whitespace() throws Exception {
+        assertThat(
+            SqlFingerprint.normalize("UPDATE MyEntity\n  SET value = 'it''s',  amount = 1.5\tWHERE id = 42"),
+            is("update myentity set value = ?, amount = ? where id = ?"));
+    }
+
+    @Test
+    public void normalize_should_keep_digits_inside_identifiers() throws Exception {
+        assertThat(SqlFingerprint.normalize("select c1 from t2 where id=3"), is("select c1 from t2 where id=?"));
+    }
+
+    @Test
+    public void shortForm_should_make_verb_and_main_table() throws Exception {
+        assertThat(SqlFingerprint.shortForm("select * from MyEntity where id=?"), is("select_myentity"));
+        assertThat(SqlFingerprint.shortForm("update MyEntity set value=?"), is("update_myentity"));
+        assertThat(SqlFingerprint.shortForm("insert into MyEntity(id, value) values (?, ?)"), is("insert_myentity"));
+        assertThat(SqlFingerprint.shortForm("delete from MyEntity where id=?"), is("delete_myentity"));
+        assertThat(SqlFingerprint.shortForm("merge into MyEntity using dual on (id=?)"), is("merge_myentity"));
+    }
+
+    @Test
+    public void shortForm_should_fall_back_to_verb() throws Exception {
+        assertThat(SqlFingerprint.shortForm("call refresh()"), is("call"));
+        assertThat(SqlFingerprint.shortForm("select 1"), is("select"));
+        assertThat(SqlFingerprint.shortForm("   "), is("unknown"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.concusim.testing;
+
+import com.github.concusim.Concurrency;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.github.concusim.testing.LostUpdateScenario.SCHEDULES;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BatchRunnerTest {
+
+    @Test
+    public void scheduleReader_should_stream_schedules_separated_by_blank_lines() throws Exception {
+        ScheduleReader reader = new ScheduleReader(new StringReader(SCHEDULES));
+
+        Schedule first = reader.next();
+        assertThat(first.size(), is(2));
+        assertThat(first.getSteps().get(1).getCheckpoint() == null, is(true));
+
+        Schedule second = reader.next();
+        assertThat(Schedule.parse(second.toString()), is(second));
+
+        Schedule third = reader.next();
+        assertThat(third.getSteps().get(1).isParallel(), is(true));
+
+        assertThat(reader.next().size(), is(1));
+        assertThat(reader.hasNext(), is(false));
+    }
+
+    @Test
+    public void batchRunner_should_report_failed_schedules() throws Exception {
+        BatchReport report = new BatchRunner(LostUpdateScenario::new)
+            .withParallelism(2)
+            .withStepTimeoutMillis(500)
+            .run(new ScheduleReader(new StringReader(SCHEDULES)));
+
+        assertThat(report.getTotal(), is(4L));
+        assertThat(report.getPassed(), is(1L));
+
+        Map<String, List<ScheduleResult>> failures = report.getFailuresBySignature();
+        assertThat(failures.get(IllegalStateException.class.getName()).size(), is(2));
+        assertThat(failures.get(CheckpointException.class.getName()).get(0).getIndex(), is(3L));
+    }
+
+    @Test
+    public void batchRunner_should_fail_schedule_which_leaked_workers() throws Exception {
+        AtomicBoolean release = new AtomicBoolean();
+        IScenario scenario = new IScenario() {
+            @Override
+            public void setUp(@NotNull ConcurrencySimulator simulator) {
+                simulator.withConcurrentWorker(() -> {
+                    while (!release.get()) {
+                        try {
+                            Concurrency.checkpoint(BatchRunnerTest.class, "park");
+                        } catch (Throwable t) {
+                            Thread.yield();
+                        }
+                    }
+                }, "stubborn");
+            }
+
+            @Override
+            public void tearDown() {
+                release.set(true);
+            }
+        };
+
+        Schedule schedule = Schedule.parse("stubborn " + CheckpointUtils.getFullName(BatchRunnerTest.class, "park"));
+        BatchReport report = new BatchRunner(() -> scenario)
+            .withStepTimeoutMillis(200)
+            .run(Collections.singletonList(schedule).iterator());
+
+        assertThat(report.getPassed(), is(0L));
+
+        List<ScheduleResult> failures = report.getFailuresBySignature().get(IllegalStateException.class.getName());
+        assertThat(failures.get(0).getFailure().getMessage(), containsString("stubborn"));
+    }
+}
@@ -5,9 +5,21 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.fail;
 
@@ -148,4 +160,480 @@ public class ConcurrencySimulatorTest {
             simulator.stop();
         }
     }
+
+    @Test
+    public void concurrencySimulator_should_jump_simulated_clock_when_all_workers_sleep() throws Exception {
+        AtomicLong elapsed = new AtomicLong();
+        Runnable worker = () -> {
+            long start = Concurrency.currentTimeNanos();
+            try {
+                for (int attempt = 0; attempt < 10; attempt++) {
+                    Concurrency.sleep(TimeUnit.MINUTES.toMillis(1));
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            elapsed.set(Concurrency.currentTimeNanos() - start);
+        };
+
+        ConcurrencySimulator simulator = new ConcurrencySimulator()
+            .withStepTimeoutSec(1)
+            .withConcurrentWorker(worker, "sleeper");
+
+        long start = System.nanoTime();
+        simulator.start();
+        try {
+            simulator
+                .run(worker).tillEnd()
+                .go();
+        } finally {
+            simulator.stop();
+        }
+
+        assertThat(elapsed.get(), is(TimeUnit.MINUTES.toNanos(10)));
+        assertThat(System.nanoTime() - start, lessThan(TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    @Test
+    public void concurrencySimulator_should_time_out_await_on_simulated_clock() throws Exception {
+        ReentrantLock lock = new ReentrantLock();
+        AtomicBoolean acquired = new AtomicBoolean(true);
+        AtomicLong waited = new AtomicLong();
+
+        Runnable holder = new Runnable() {
+            @Override
+            public void run() {
+                lock.lock();
+                try {
+                    Concurrency.checkpoint(getClass(), "locked");
+                } finally {
+                    lock.unlock();
+                }
+            }
+        };
+        Runnable waiter = new Runnable() {
+            @Override
+            public void run() {
+                long start = Concurrency.currentTimeNanos();
+                try {
+                    acquired.set(Concurrency.await(getClass(), "lock", lock::tryLock, 5, TimeUnit.MINUTES));
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                waited.set(Concurrency.currentTimeNanos() - start);
+            }
+        };
+
+        ConcurrencySimulator simulator = new ConcurrencySimulator()
+            .withStepTimeoutSec(1)
+            .withConcurrentWorker(holder, "holder")
+            .withConcurrentWorker(waiter, "waiter");
+
+        simulator.start();
+        try {
+            simulator
+                .run(holder).till(holder.getClass(), "locked")
+                .run(waiter).tillEnd()
+                .run(holder).tillEnd()
+                .go();
+        } finally {
+            simulator.stop();
+        }
+
+        assertThat(acquired.get(), is(false));
+        assertThat(waited.get(), greaterThanOrEqualTo(TimeUnit.MINUTES.toNanos(5)));
+    }
+
+    @Test
+    public void concurrencySimulator_go_should_throw_if_step_exceeded_alloc_budget() throws Exception {
+        Runnable worker = new Runnable() {
+            volatile byte[] garbage;
+
+            @Override
+            public void run() {
+                Concurrency.checkpoint(getClass(), "frugal");
+                garbage = new byte[4 * 1024 * 1024];
+            }
+        };
+
+        ConcurrencySimulator simulator = new ConcurrencySimulator()
+            .withConcurrentWorker(worker, "allocator");
+
+        simulator.start();
+        try {
+            simulator
+                .run(worker).till(worker.getClass(), "frugal").withinAllocBytes(1024 * 1024)
+                .go();
+
+            assertThat(simulator.getStepMetrics().size(), is(1));
+            assertThat(simulator.getStepMetrics().get(0).getWallNanos(), greaterThan(0L));
+
+            simulator
+                .run(worker).tillEnd().withinAllocBytes(1024 * 1024)
+                .go();
+
+            fail("BudgetException is expected.");
+        } catch (BudgetException e) {
+            assertThat(e.getMessage(), containsString("allocator"));
+            assertThat(simulator.getStepMetrics().get(0).getAllocatedBytes(), greaterThan(4L * 1024 * 1024));
+        } finally {
+            simulator.stop();
+        }
+    }
+
+    @Test
+    public void concurrencySimulator_should_report_contention_per_checkpoint_segment() throws Exception {
+        Object monitor = new Object();
+
+        Runnable holder = new Runnable() {
+            @Override
+            public void run() {
+                synchronized (monitor) {
+                    Concurrency.checkpoint(getClass(), "locked");
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+        };
+        Runnable contender = new Runnable() {
+            @Override
+            public void run() {
+                synchronized (monitor) {
+                    Concurrency.checkpoint(getClass(), "entered");
+                }
+            }
+        };
+
+        ContentionProfiler profiler = new ContentionProfiler();
+        ConcurrencySimulator simulator = new ConcurrencySimulator()
+            .withContentionProfiler(profiler)
+            .withConcurrentWorker(holder, "holder")
+            .withConcurrentWorker(contender, "contender");
+
+        simulator.start();
+        try {
+            simulator
+                .run(holder).till(holder.getClass(), "locked")
+                .go();
+
+            simulator
+                .run(holder).tillEnd()
+                .run(contender).parallel().tillEnd()
+                .go();
+        } finally {
+            simulator.stop();
+        }
+
+        SegmentContention segment = profiler.getSegments().stream()
+            .filter(s -> s.getTo().endsWith("#entered"))
+            .findFirst()
+            .orElseThrow(AssertionError::new);
+
+        assertThat(segment.getFrom(), is(ContentionProfiler.START));
+        assertThat(segment.getBlockedCount(), greaterThan(0L));
+        assertThat(profiler.getReport(), containsString("held by holder"));
+    }
+
+    @Test
+    public void concurrencySimulator_should_run_worker_group_till_checkpoint_at_once() throws Exception {
+        AtomicInteger version = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        ConcurrencySimulator simulator = new ConcurrencySimulator()
+            .withConcurrentWorkers("request", index -> new Runnable() {
+                @Override
+                public void run() {
+                    int expected = version.get();
+                    Concurrency.checkpoint(getClass(), "beforeCommit");
+                    if (!version.compareAndSet(expected, expected + 1)) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+            }, 500);
+
+        List<Runnable> requests = simulator.getGroup("request");
+        Class<?> requestClass = requests.get(0).getClass();
+
+        simulator.start();
+        try {
+            simulator
+                .runGroup("request").till(requestClass, "beforeCommit")
+                .go();
+
+            assertThat(simulator.getStepMetrics().size(), is(500));
+
+            simulator
+                .run(requests.get(42)).tillEnd()
+                .go();
+
+            assertThat(version.get(), is(1));
+
+            for (Runnable request: requests) {
+                if (request != requests.get(42)) {
+                    simulator.run(request).parallel().tillEnd();
+                }
+            }
+            simulator.go();
+        } finally {
+            simulator.stop();
+        }
+
+        assertThat(version.get(), is(1));
+        assertThat(conflicts.get(), is(499));
+    }
+
+    @Test
+    public void concurrencySimulator_should_detect_races_not_ordered_by_steps_or_locks() throws Exception {
+        class Shared {
+            int counter;
+            int guarded;
+        }
+        Shared shared = new Shared();
+        Object lock = new Object();
+
+        Runnable increment = () -> {
+            Concurrency.read(shared, "counter");
+            Concurrency.write(shared, "counter");
+            shared.counter++;
+
+            synchronized (lock) {
+                Concurrency.acquire(lock);
+                Concurrency.read(shared, "guarded");
+                Concurrency.write(shared, "guarded");
+                shared.guarded++;
+                Concurrency.release(lock);
+            }
+        };
+
+        RaceDetector detector = new RaceDetector();
+        ConcurrencySimulator simulator = new ConcurrencySimulator()
+            .withRaceDetector(detector)
+            .withConcurrentWorker(increment::run, "a")
+            .withConcurrentWorker(increment::run, "b")
+            .withConcurrentWorker(increment::run, "c");
+
+        simulator.start();
+        try {
+            simulator
+                .run("a").tillEnd()
+                .run("b").parallel().tillEnd()
+                .run("c").tillEnd()
+                .go();
+        } finally {
+            simulator.stop();
+        }
+
+        List<DataRace> races = detector.getRaces();
+        assertThat(detector.getReport(), races.isEmpty(), is(false));
+        for (DataRace race: races) {
+            assertThat(race.toString(), race.getField(), is("Shared.counter"));
+            assertThat(race.toString(), race.getCurrentWorker().equals("c"), is(false));
+        }
+    }
+
+    @Test
+    public void concurrencySimulator_close_should_unwind_parked_workers_and_report_leaked_ones() throws Exception {
+        AtomicBoolean unwound = new AtomicBoolean();
+        AtomicBoolean release = new AtomicBoolean();
+
+        Runnable parked = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Concurrency.checkpoint(getClass(), "parked");
+                } finally {
+                    unwound.set(true);
+                }
+            }
+        };
+        Runnable stubborn = () -> {
+            while (!release.get()) {
+                Thread.yield();
+            }
+        };
+
+        ConcurrencySimulator simulator = new ConcurrencySimulator()
+            .withStepTimeoutMillis(200)
+            .withConcurrentWorker(parked, "parked")
+            .withConcurrentWorker(stubborn, "stubborn");
+
+        simulator.start();
+        try {
+            simulator
+                .run(parked).till(parked.getClass(), "parked")
+                .run(stubborn).parallel().tillEnd()
+                .go();
+
+            fail("TimeoutException expected");
+        } catch (TimeoutException | AggregatedException e) {
+            // expected, parked worker might time out waiting for the next step as well
+        }
+
+        try {
+            simulator.close();
+
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("stubborn"));
+        } finally {
+            release.set(true);
+        }
+
+        assertThat(unwound.get(), is(true));
+        assertThat(simulator.getLeakedWorkers(), is(Collections.singletonList("stubborn")));
+    }
+
+    @Test
+    public void concurrencySimulator_stop_should_keep_joining_workers_if_interrupted() throws Exception {
+        AtomicBoolean release = new AtomicBoolean();
+        Runnable slow = () -> {
+            while (!release.get()) {
+                Thread.yield();
+            }
+        };
+
+        ConcurrencySimulator simulator = new ConcurrencySimulator()
+            .withStepTimeoutMillis(500)
+            .withConcurrentWorker(slow, "slow");
+
+        simulator.start();
+        try {
+            simulator
+                .run(slow).tillEnd()
+                .go();
+
+            fail("TimeoutException expected");
+        } catch (TimeoutException e) {
+            // expected
+        }
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                // ignore
+            } finally {
+                release.set(true);
+            }
+        });
+        releaser.start();
+
+        Thread.currentThread().interrupt();
+        try {
+            simulator.stop();
+
+            assertThat(Thread.currentThread().isInterrupted(), is(true));
+        } finally {
+            Thread.interrupted();
+            release.set(true);
+            releaser.join();
+        }
+
+        assertThat(simulator.getLeakedWorkers().isEmpty(), is(true));
+    }
+
+    @Test
+    public void concurrencySimulator_go_should_throw_if_worker_out_of_step_failed() throws Exception {
+        Runnable parked = new Runnable() {
+            @Override
+            public void run() {
+                Concurrency.checkpoint(getClass(), "parked");
+            }
+        };
+        Runnable other = () -> {};
+
+        ConcurrencySimulator simulator = new ConcurrencySimulator()
+            .withStepTimeoutMillis(200)
+            .withConcurrentWorker(parked, "parked");
+
+        simulator.start();
+        try {
+            simulator
+                .run(parked).till(parked.getClass(), "parked")
+                .go();
+
+            // parked worker times out waiting for the next step
+            Thread.sleep(500);
+            simulator.withConcurrentWorker(other, "other");
+
+            try {
+                simulator
+                    .run(other).tillEnd()
+                    .go();
+
+                fail("AggregatedException expected");
+            } catch (AggregatedException e) {
+                assertThat(e.getCauseFor(parked) != null, is(true));
+                assertThat(e.getCauseFor(other) == null, is(true));
+            }
+        } finally {
+            simulator.stop();
+        }
+    }
+
+    @Test
+    public void concurrencySimulator_should_reject_duplicate_names_without_registering_anything() throws Exception {
+        ConcurrencySimulator simulator = new ConcurrencySimulator()
+            .withConcurrentWorker(() -> {}, "w")
+            .withConcurrentWorkers("g", index -> () -> {}, 2);
+
+        try {
+            simulator.withConcurrentWorker(() -> {}, "w");
+
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("'w'"));
+        }
+
+        try {
+            simulator.withConcurrentWorkers("g", index -> () -> {}, 3);
+
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("'g'"));
+        }
+
+        try {
+            simulator.run("g[2]");
+
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("g[2]"));
+        }
+    }
+
+    @Test
+    public void concurrencySimulator_should_make_default_worker_names_unique() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                counter.incrementAndGet();
+            }
+
+            @Override
+            public String toString() {
+                return "w";
+            }
+        };
+
+        ConcurrencySimulator simulator = new ConcurrencySimulator()
+            .withConcurrentWorker(worker)
+            .withConcurrentWorker(worker);
+
+        simulator.start();
+        try {
+            simulator
+                .run("w").tillEnd()
+                .run("w#2").tillEnd()
+                .go();
+
+            assertThat(counter.get(), is(2));
+        } finally {
+            simulator.stop();
+        }
+    }
 }
@@ -0,0 +1,125 @@
+package com.github.concusim.testing;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static com.github.concusim.testing.LostUpdateScenario.READ;
+import static com.github.concusim.testing.LostUpdateScenario.SCHEDULES;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ExplorationCacheTest {
+
+    /**
+     * Scenario class which doesn't own any checkpoint, so only scenario hashing detects its changes.
+     */
+    public static class DerivedScenario extends LostUpdateScenario {
+    }
+
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void explorationCache_should_skip_unchanged_scenario() throws Exception {
+        Path schedules = temp.newFile("schedules.txt").toPath();
+        Files.write(schedules, SCHEDULES.getBytes(StandardCharsets.UTF_8));
+
+        AtomicInteger runs = new AtomicInteger();
+        BatchRunner runner = new BatchRunner(() -> {
+            runs.incrementAndGet();
+            return new LostUpdateScenario();
+        }).withStepTimeoutMillis(500);
+
+        ExplorationCache cache = new ExplorationCache(temp.getRoot().toPath().resolve("cache"));
+
+        BatchReport explored = cache.run("lostUpdate", runner, schedules);
+        assertThat(runs.get(), is(4));
+        assertThat(explored.getReachedCheckpoints().contains(READ), is(true));
+
+        BatchReport cached = cache.run("lostUpdate", runner, schedules);
+        assertThat(runs.get(), is(4));
+        assertThat(cached.getSummary(), is(explored.getSummary()));
+        assertThat(cached.getFailures().get(0).getSchedule(), is(explored.getFailures().get(0).getSchedule()));
+
+        cache.withSpotChecks(2).run("lostUpdate", runner, schedules);
+        assertThat(runs.get(), is(6));
+
+        cache.run("anotherScenario", runner, schedules);
+        assertThat(runs.get(), is(10));
+    }
+
+    @Test
+    public void explorationCache_should_rerun_if_scenario_class_changed() throws Exception {
+        Path schedules = temp.newFile("schedules.txt").toPath();
+        Files.write(schedules, SCHEDULES.getBytes(StandardCharsets.UTF_8));
+
+        AtomicInteger runs = new AtomicInteger();
+        BatchRunner runner = new BatchRunner(() -> {
+            runs.incrementAndGet();
+            return new DerivedScenario();
+        }).withStepTimeoutMillis(500);
+
+        Path directory = temp.getRoot().toPath().resolve("cache");
+        ExplorationCache cache = new ExplorationCache(directory);
+
+        cache.run("derived", runner, schedules);
+        assertThat(runs.get(), is(4));
+
+        List<Path> entries = Files.list(directory).collect(Collectors.toList());
+        assertThat(entries.size(), is(1));
+
+        // simulate recompiled scenario
+        Properties entry = new Properties();
+        try (InputStream in = Files.newInputStream(entries.get(0))) {
+            entry.load(in);
+        }
+        String key = "class." + DerivedScenario.class.getName();
+        assertThat(entry.containsKey(key), is(true));
+        entry.setProperty(key, "changed");
+        try (OutputStream out = Files.newOutputStream(entries.get(0))) {
+            entry.store(out, null);
+        }
+
+        cache.run("derived", runner, schedules);
+        assertThat(runs.get(), is(8));
+
+        cache.run("derived", runner, schedules);
+        assertThat(runs.get(), is(8));
+    }
+
+    @Test
+    public void explorationCache_should_hash_only_classes_of_the_explored_scenario() throws Exception {
+        Path schedules = temp.newFile("schedules.txt").toPath();
+        Files.write(schedules, SCHEDULES.getBytes(StandardCharsets.UTF_8));
+
+        AtomicBoolean derived = new AtomicBoolean(true);
+        BatchRunner runner = new BatchRunner(() -> derived.get() ? new DerivedScenario() : new LostUpdateScenario())
+            .withStepTimeoutMillis(500);
+
+        new ExplorationCache(temp.getRoot().toPath().resolve("derived")).run("derived", runner, schedules);
+
+        derived.set(false);
+        Path directory = temp.getRoot().toPath().resolve("base");
+        new ExplorationCache(directory).run("base", runner, schedules);
+
+        List<Path> entries = Files.list(directory).collect(Collectors.toList());
+        Properties entry = new Properties();
+        try (InputStream in = Files.newInputStream(entries.get(0))) {
+            entry.load(in);
+        }
+        assertThat(entry.containsKey("class." + LostUpdateScenario.class.getName()), is(true));
+        assertThat(entry.containsKey("class." + DerivedScenario.class.getName()), is(false));
+    }
+}
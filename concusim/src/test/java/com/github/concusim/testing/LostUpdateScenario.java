@@ -0,0 +1,57 @@
+package com.github.concusim.testing;
+
+import com.github.concusim.Concurrency;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Two workers increment shared counter non-atomically with checkpoint between read and write,
+ * so some interleavings lose an update. Worker C is irrelevant noise.
+ * Public to be instantiated by forked shard worker.
+ */
+public class LostUpdateScenario implements IScenario {
+    static final String READ = CheckpointUtils.getFullName(LostUpdateScenario.class, "read");
+
+    static final String SCHEDULES =
+        "# sequential\n" +
+        "A end\n" +
+        "B end\n" +
+        "\n" +
+        "# lost update\n" +
+        "A " + READ + "\n" +
+        "B end\n" +
+        "A end\n" +
+        "\n\n" +
+        "A " + READ + "\n" +
+        "B " + READ + " parallel\n" +
+        "A end\n" +
+        "B end\n" +
+        "\n" +
+        "# unknown checkpoint\n" +
+        "A " + LostUpdateScenario.class.getName() + "#write\n";
+
+    private final AtomicInteger counter = new AtomicInteger();
+    private final AtomicInteger increments = new AtomicInteger();
+
+    @Override
+    public void setUp(@NotNull ConcurrencySimulator simulator) {
+        simulator
+            .withConcurrentWorker(this::increment, "A")
+            .withConcurrentWorker(this::increment, "B")
+            .withConcurrentWorker(() -> Concurrency.checkpoint(LostUpdateScenario.class, "read"), "C");
+    }
+
+    @Override
+    public void verify() {
+        if (counter.get() != increments.get())
+            throw new IllegalStateException("Lost update.");
+    }
+
+    private void increment() {
+        int value = counter.get();
+        Concurrency.checkpoint(LostUpdateScenario.class, "read");
+        counter.set(value + 1);
+        increments.incrementAndGet();
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.concusim.testing;
+
+import org.junit.Test;
+
+import static com.github.concusim.testing.LostUpdateScenario.READ;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ScheduleMinimizerTest {
+
+    @Test
+    public void scheduleMinimizer_should_find_shortest_schedule_failing_same_way() throws Exception {
+        Schedule failing = Schedule.parse(
+            "C " + READ + "\n" +
+            "B " + READ + "\n" +
+            "A " + READ + "\n" +
+            "C end\n" +
+            "B end\n" +
+            "A end\n");
+
+        Schedule minimal = new ScheduleMinimizer(new BatchRunner(LostUpdateScenario::new).withStepTimeoutMillis(500))
+            .withParallelism(2)
+            .minimize(failing);
+
+        assertThat(minimal.size(), is(3));
+        assertThat(minimal.getSteps().get(0).getCheckpoint(), is(READ));
+        assertThat(minimal.toJava(), containsString(".till(" + LostUpdateScenario.class.getName() + ".class, \"read\")"));
+    }
+
+    @Test
+    public void schedule_toJava_should_look_up_anonymous_checkpoint_owner_by_name() throws Exception {
+        Runnable anonymous = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+        String owner = anonymous.getClass().getName();
+
+        Schedule schedule = Schedule.parse("A " + owner + "#foo\n");
+
+        assertThat(
+            schedule.toJava(),
+            containsString(".till(" + CheckpointUtils.class.getName() + ".getOwner(\"" + owner + "\"), \"foo\")"));
+        assertThat(CheckpointUtils.getOwner(owner) == anonymous.getClass(), is(true));
+    }
+}
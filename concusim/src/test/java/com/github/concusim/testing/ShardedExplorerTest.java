@@ -0,0 +1,130 @@
+package com.github.concusim.testing;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static com.github.concusim.testing.LostUpdateScenario.READ;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ShardedExplorerTest {
+    private static final String CRASH_MARKER = "concusim.test.crashMarker";
+    private static final String CRASH_MODE = "concusim.test.crashMode";
+
+    /**
+     * Crashes its shard at the first set up across all shards (marker file is created atomically),
+     * after a delay which lets the other shard drain the queue. Depending on crash mode the shard
+     * halts its JVM, replies with malformed report or hangs.
+     */
+    public static class CrashingOnceScenario extends LostUpdateScenario {
+        @Override
+        public void setUp(@NotNull ConcurrencySimulator simulator) {
+            try {
+                Files.createFile(Paths.get(System.getProperty(CRASH_MARKER)));
+                Thread.sleep(1500);
+                switch (System.getProperty(CRASH_MODE, "halt")) {
+                    case "malformed":
+                        // stdout of the shard is redirected to stderr, so write to the protocol directly
+                        PrintStream protocol = new PrintStream(new FileOutputStream(FileDescriptor.out), true);
+                        protocol.println("total many");
+                        break;
+                    case "hang":
+                        Thread.sleep(Long.MAX_VALUE);
+                        break;
+                    default:
+                        Runtime.getRuntime().halt(1);
+                        break;
+                }
+            } catch (FileAlreadyExistsException e) {
+                // crashed already
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+
+            super.setUp(simulator);
+        }
+    }
+
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void shardedExplorer_should_explore_whole_space_in_forked_jvms() throws Exception {
+        ScheduleSpace space = new ScheduleSpace()
+            .withWorker("A", READ)
+            .withWorker("B", READ);
+
+        assertThat(space.size(), is(6L));
+        assertThat(space.prefixes(1).size(), is(2));
+        assertThat(space.count(space.prefixes(1).get(0).getSteps()), is(3L));
+
+        BatchReport report = new ShardedExplorer(LostUpdateScenario.class)
+            .withShards(2)
+            .withPrefixDepth(2)
+            .withStepTimeoutMillis(500)
+            .run(space);
+
+        // only A-A-B-B and B-B-A-A don't lose update
+        assertThat(report.getTotal(), is(6L));
+        assertThat(report.getFailures().size(), is(4));
+        assertThat(report.getFailures().get(0).getIndex(), is(1L));
+        assertThat(report.getFailures().get(3).getIndex(), is(4L));
+        assertThat(report.getReachedCheckpoints().contains(READ), is(true));
+    }
+
+    @Test
+    public void shardedExplorer_should_hand_prefix_of_crashed_shard_over_to_remaining_one() throws Exception {
+        Path marker = temp.getRoot().toPath().resolve("crashed");
+
+        BatchReport report = new ShardedExplorer(CrashingOnceScenario.class)
+            .withShards(2)
+            .withPrefixDepth(1)
+            .withStepTimeoutMillis(500)
+            .withJvmArgs("-D" + CRASH_MARKER + "=" + marker)
+            .run(new ScheduleSpace()
+                .withWorker("A", READ)
+                .withWorker("B", READ));
+
+        assertThat(Files.exists(marker), is(true));
+        assertThat(report.getTotal(), is(6L));
+        assertThat(report.getFailures().size(), is(4));
+    }
+
+    @Test
+    public void shardedExplorer_should_treat_malformed_report_as_crash() throws Exception {
+        assertCrashHandedOver("malformed");
+    }
+
+    @Test(timeout = 60000)
+    public void shardedExplorer_should_treat_silent_shard_as_crash() throws Exception {
+        assertCrashHandedOver("hang");
+    }
+
+    private void assertCrashHandedOver(@NotNull String mode) throws Exception {
+        Path marker = temp.getRoot().toPath().resolve("crashed");
+
+        BatchReport report = new ShardedExplorer(CrashingOnceScenario.class)
+            .withShards(2)
+            .withPrefixDepth(1)
+            .withStepTimeoutMillis(300)
+            .withJvmArgs("-D" + CRASH_MARKER + "=" + marker, "-D" + CRASH_MODE + "=" + mode)
+            .run(new ScheduleSpace()
+                .withWorker("A", READ)
+                .withWorker("B", READ));
+
+        assertThat(Files.exists(marker), is(true));
+        assertThat(report.getTotal(), is(6L));
+        assertThat(report.getFailures().size(), is(4));
+    }
+}
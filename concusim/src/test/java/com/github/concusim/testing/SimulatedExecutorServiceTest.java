@@ -0,0 +1,136 @@
+package com.github.concusim.testing;
+
+import com.github.concusim.Concurrency;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SimulatedExecutorServiceTest {
+
+    @Before
+    public void setUp() throws Exception {
+        Concurrency.enableCheckpoints();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Concurrency.disableCheckpoints();
+    }
+
+    @Test
+    public void simulatedExecutorService_should_run_submitted_tasks_when_simulator_decides() throws Exception {
+        ConcurrencySimulator simulator = new ConcurrencySimulator();
+        SimulatedExecutorService executor = new SimulatedExecutorService(simulator, "pool");
+        AtomicInteger counter = new AtomicInteger();
+
+        Runnable client = () -> {
+            executor.submit(counter::incrementAndGet);
+            executor.submit(() -> counter.addAndGet(10));
+        };
+
+        simulator.withConcurrentWorker(client, "client");
+
+        simulator.start();
+        try {
+            simulator
+                .run(client).tillEnd()
+                .go();
+
+            assertThat(executor.getTaskCount(), is(2));
+            assertThat(counter.get(), is(0));
+
+            simulator
+                .run(executor.getTask(1)).tillEnd()
+                .go();
+
+            assertThat(counter.get(), is(10));
+            assertThat(((Future<?>) executor.getTask(0)).isDone(), is(false));
+
+            simulator
+                .run(executor.getTask(0)).tillEnd()
+                .go();
+
+            assertThat(counter.get(), is(11));
+        } finally {
+            executor.shutdownNow();
+            simulator.stop();
+        }
+    }
+
+    @Test
+    public void simulatedExecutorService_should_run_periodic_task_period_by_period() throws Exception {
+        ConcurrencySimulator simulator = new ConcurrencySimulator();
+        SimulatedExecutorService executor = new SimulatedExecutorService(simulator, "scheduler");
+        AtomicInteger counter = new AtomicInteger();
+
+        simulator.start();
+        try {
+            ScheduledFuture<?> future = executor.scheduleAtFixedRate(counter::incrementAndGet, 1, 1, TimeUnit.HOURS);
+
+            simulator
+                .run((Runnable) future).till(SimulatedExecutorService.class, SimulatedExecutorService.CHECKPOINT_NEXT_PERIOD)
+                .go();
+
+            assertThat(counter.get(), is(1));
+
+            simulator
+                .run((Runnable) future).till(SimulatedExecutorService.class, SimulatedExecutorService.CHECKPOINT_NEXT_PERIOD)
+                .go();
+
+            assertThat(counter.get(), is(2));
+
+            future.cancel(false);
+
+            simulator
+                .run((Runnable) future).tillEnd()
+                .go();
+
+            assertThat(counter.get(), is(2));
+        } finally {
+            executor.shutdownNow();
+            simulator.stop();
+        }
+    }
+
+    @Test
+    public void simulatedExecutorService_should_track_executed_runnables() throws Exception {
+        ConcurrencySimulator simulator = new ConcurrencySimulator();
+        SimulatedExecutorService executor = new SimulatedExecutorService(simulator, "pool");
+        AtomicInteger counter = new AtomicInteger();
+
+        simulator.start();
+        try {
+            executor.execute(counter::incrementAndGet);
+            executor.execute(counter::incrementAndGet);
+            executor.shutdown();
+
+            assertThat(executor.isTerminated(), is(false));
+
+            simulator
+                .run(executor.getTask(0)).tillEnd()
+                .go();
+
+            assertThat(counter.get(), is(1));
+            assertThat(executor.isTerminated(), is(false));
+
+            List<Runnable> pending = executor.shutdownNow();
+
+            assertThat(pending.size(), is(1));
+            assertThat(pending.get(0), is(sameInstance(executor.getTask(1))));
+            assertThat(executor.isTerminated(), is(true));
+        } finally {
+            executor.shutdownNow();
+            simulator.stop();
+        }
+    }
+}